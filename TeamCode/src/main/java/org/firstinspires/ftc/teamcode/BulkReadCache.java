@@ -0,0 +1,50 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.hardware.lynx.LynxModule;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+
+import java.util.List;
+
+/**
+ * Puts every hub into manual bulk caching, so that all encoder and motor reads on a hub are served from one bulk read
+ * until the cache is cleared. Clear it exactly once per control loop, before any reads, or every read returns stale values.
+ */
+public class BulkReadCache {
+
+    private static List<LynxModule> hubs;
+
+    /**
+     * Switches every hub in the given HardwareMap to manual bulk caching and clears their caches.
+     *
+     * @param hardwareMap the HardwareMap for the robot.
+     */
+    public static void init(HardwareMap hardwareMap) {
+        hubs = hardwareMap.getAll(LynxModule.class);
+        for (LynxModule hub : hubs) {
+            hub.setBulkCachingMode(LynxModule.BulkCachingMode.MANUAL);
+        }
+        clear();
+    }
+
+    /**
+     * Clears the cache of every hub, so that the next read on each hub does one new bulk read.
+     */
+    public static void clear() {
+        if (hubs == null) return;
+        for (int i = 0; i < hubs.size(); i++) {
+            hubs.get(i).clearBulkCache();
+        }
+    }
+
+    /**
+     * Switches every hub back to reading each value on its own, such as before an OpMode that does not clear the cache.
+     */
+    public static void disable() {
+        if (hubs == null) return;
+        for (LynxModule hub : hubs) {
+            hub.setBulkCachingMode(LynxModule.BulkCachingMode.OFF);
+        }
+        hubs = null;
+    }
+
+}
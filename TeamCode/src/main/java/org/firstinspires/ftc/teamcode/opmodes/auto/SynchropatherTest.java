@@ -2,18 +2,34 @@ package org.firstinspires.ftc.teamcode.opmodes.auto;
 
 import com.qualcomm.robotcore.eventloop.opmode.Autonomous;
 import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
+import com.qualcomm.robotcore.hardware.VoltageSensor;
+import com.qualcomm.robotcore.util.RobotLog;
 
+import org.firstinspires.ftc.teamcode.BulkReadCache;
 import org.firstinspires.ftc.teamcode.HardwareRobot;
 import org.firstinspires.ftc.teamcode.subsystems.DriveSubsystem;
 import org.firstinspires.ftc.teamcode.subsystems.OdometrySubsystem;
+import org.firstinspires.ftc.teamcode.synchropather.DriveConstants;
+import org.firstinspires.ftc.teamcode.synchropather.paths.PathDefinition;
+import org.firstinspires.ftc.teamcode.synchropather.paths.PrecomputedTrajectories;
+import org.firstinspires.ftc.teamcode.synchropather.paths.SynchropatherTestPath;
+import org.firstinspires.ftc.teamcode.synchropather.systems.MovementType;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.BakedTrajectory;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.LatencyHistogram;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.LoopProfiler;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.LoopScheduler;
 import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.Synchronizer;
-import org.firstinspires.ftc.teamcode.synchropather.systems.rotation.LinearRotation;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.TrajectoryCache;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.VoltageScaling;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.superclasses.Movement;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.superclasses.Plan;
 import org.firstinspires.ftc.teamcode.synchropather.systems.rotation.RotationPlan;
-import org.firstinspires.ftc.teamcode.synchropather.systems.rotation.RotationState;
-import org.firstinspires.ftc.teamcode.synchropather.systems.translation.CRSplineTranslation;
-import org.firstinspires.ftc.teamcode.synchropather.systems.translation.LinearTranslation;
 import org.firstinspires.ftc.teamcode.synchropather.systems.translation.TranslationPlan;
-import org.firstinspires.ftc.teamcode.synchropather.systems.translation.TranslationState;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
 
 @Autonomous(name="SynchroPather Test")
 public class SynchropatherTest extends LinearOpMode {
@@ -35,125 +51,124 @@ public class SynchropatherTest extends LinearOpMode {
                 telemetry
         );
 
-        waitForStart();
+        // read each hub once per loop instead of once per encoder
+        BulkReadCache.init(hardwareMap);
+
+        // scale the kinematic limits for this battery before planning
+        double voltage = getBatteryVoltage();
+        double voltageScale = VoltageScaling.setVoltage(voltage);
+        telemetry.addData("Battery", "%.2f V, limits x%.3f", voltage, voltageScale);
+        telemetry.update();
+
+        // use the tables generated at build time only when they match the current limits, otherwise plan on the robot during
+        // init, so a weak battery gets an achievable Plan and a strong one gets a faster Plan
+        SynchropatherTestPath path = new SynchropatherTestPath();
+        boolean usePrecomputed = VoltageScaling.isNominal();
+        BakedTrajectory translationTable = usePrecomputed ? PrecomputedTrajectories.load(path.getName(), MovementType.TRANSLATION) : null;
+        BakedTrajectory rotationTable = usePrecomputed ? PrecomputedTrajectories.load(path.getName(), MovementType.ROTATION) : null;
+        if (!usePrecomputed) {
+            String message = String.format("Battery at %.2f V scales limits x%.3f, planning %s on the robot instead of using precomputed tables",
+                    voltage, voltageScale, path.getName());
+            RobotLog.i(message);
+            telemetry.log().add(message);
+        }
+        ExecutorService planner = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+        TrajectoryCache cache = new TrajectoryCache();
 
         // translation Plan
-        CRSplineTranslation spline1 = new CRSplineTranslation(0,
-                new TranslationState(-40.75,63.5),
-                new TranslationState(-40.75,38),
-                new TranslationState(43,36)
-        );
-
-        CRSplineTranslation spline2 = new CRSplineTranslation(spline1.getEndTime(),
-                new TranslationState(43,36),
-                new TranslationState(0,12),
-                new TranslationState(-56,12)
-        );
-
-        CRSplineTranslation spline3 = new CRSplineTranslation(spline2.getEndTime(),
-                new TranslationState(-56,12),
-                new TranslationState(12,12),
-                new TranslationState(43,36)
-        );
-
-        CRSplineTranslation spline4 = new CRSplineTranslation(spline3.getEndTime(),
-                new TranslationState(43,36),
-                new TranslationState(0,12),
-                new TranslationState(-36,12),
-                new TranslationState(-56,24)
-        );
-
-        CRSplineTranslation spline5 = new CRSplineTranslation(spline4.getEndTime(),
-                new TranslationState(-56,24),
-                new TranslationState(-36,12),
-                new TranslationState(0,12),
-                new TranslationState(43,36)
-        );
-
-        LinearTranslation line1 = new LinearTranslation(spline5.getEndTime(),
-                new TranslationState(43,36),
-                new TranslationState(43,12)
-        );
-
-        LinearTranslation line2 = new LinearTranslation(line1.getEndTime(),
-                new TranslationState(43,12),
-                new TranslationState(53,12)
-        );
-
-        LinearTranslation line3 = new LinearTranslation(line2.getEndTime(),
-                new TranslationState(53,12),
-                new TranslationState(0,0)
-        );
-
-        LinearTranslation line4 = new LinearTranslation(line3.getEndTime()+3,
-                new TranslationState(0, 0),
-                new TranslationState(48, 60)
-        );
-
-        LinearTranslation line5 = new LinearTranslation(line4.getEndTime(),
-                new TranslationState(48, 60),
-                new TranslationState(-48, 60)
-        );
+        CompletableFuture<TranslationPlan> translationPlan = getPlan(path, MovementType.TRANSLATION, translationTable, cache, planner,
+                TranslationPlan::new, TranslationPlan::new);
 
-        LinearTranslation line6 = new LinearTranslation(line5.getEndTime(),
-                new TranslationState(-48, 60),
-                new TranslationState(-48, -60)
-        );
-
-        LinearTranslation line7 = new LinearTranslation(line6.getEndTime(),
-                new TranslationState(-48, -60),
-                new TranslationState(48, -60)
-        );
-
-        LinearTranslation line8 = new LinearTranslation(line7.getEndTime(),
-                new TranslationState(48, -60),
-                new TranslationState(0,0)
-        );
-
-        CRSplineTranslation returnToStart = new CRSplineTranslation(line8.getEndTime(),
-                new TranslationState(0,0),
-                new TranslationState(-36,12),
-                new TranslationState(-40.75,63.5)
-        );
-
-        TranslationPlan translationPlan = new TranslationPlan(
-                spline1,
-                spline2,
-                spline3,
-                spline4,
-                spline5,
-                line1,
-                line2,
-                line3,
-                line4,
-                line5,
-                line6,
-                line7,
-                line8,
-                returnToStart
-        );
+        // rotation Plan
+        CompletableFuture<RotationPlan> rotationPlan = getPlan(path, MovementType.ROTATION, rotationTable, cache, planner,
+                RotationPlan::new, RotationPlan::new);
 
+        // put all the Plans into a Synchronizer that slows down wherever a wheel would saturate
+        CompletableFuture<Synchronizer> synchronizerFuture = translationPlan.thenCombine(rotationPlan, (translation, rotation) -> {
+            Synchronizer synchronizer = new Synchronizer(translation, rotation);
+            synchronizer.limitWheelSpeeds();
+            return synchronizer;
+        });
 
-        // rotation Plan
-        LinearRotation rot1 = new LinearRotation(0,
-                new RotationState(0),
-                new RotationState(Math.toRadians(360))
-        );
+        waitForStart();
 
-        RotationPlan rotationPlan = new RotationPlan(
-                rot1
-        );
+        // block only on planning that is still unfinished
+        Synchronizer synchronizer = synchronizerFuture.join();
+        planner.shutdown();
+
+        // refresh the hub snapshot and the pose once per tick, before the Plans read them
+        synchronizer.setHardwareUpdate(() -> {
+            BulkReadCache.clear();
+            OdometrySubsystem.update();
+        });
+
+        // run the control loop at a fixed rate, targeting the scheduled time of each tick, with the work of each tick
+        // created once so the loop does not allocate
+        LoopScheduler scheduler = new LoopScheduler();
+        Runnable control = () -> synchronizer.loop(scheduler.getTickTime());
+        Runnable report = () -> {
+            telemetry.addData("Loop", "%.1f Hz, late %.1f ms", synchronizer.getLoopFrequency(), scheduler.getLateness() * 1000);
+            telemetry.addData("Overruns", "%d (%d ticks missed)", scheduler.getOverrunCount(), scheduler.getMissedTickCount());
+            for (LatencyHistogram histogram : LoopProfiler.getHistograms()) {
+                telemetry.addData(histogram.getName(), histogram.getSummary());
+            }
+            telemetry.update();
+        };
+        LoopProfiler.resetAll();
+        scheduler.start();
+        while (opModeIsActive()) {
+            scheduler.runTick(control, report);
+        }
 
+        // keep the latencies of this run in the robot log to compare against later runs
+        RobotLog.i(LoopProfiler.dump());
+        BulkReadCache.disable();
 
-        // put all the Plans into a Synchronizer
-        Synchronizer synchronizer = new Synchronizer(
-                translationPlan,
-                rotationPlan
-        );
+    }
 
-        while (opModeIsActive()) {
-            synchronizer.loop();
+    /**
+     * Creates the Plan of the given path and MovementType from its precomputed table if there is one. Otherwise loads the
+     * trajectory stored by an earlier run at the same voltage scale, or builds the Movements on the planner and stores the
+     * baked result for the next run.
+     * @param path
+     * @param movementType
+     * @param table the precomputed table, or null to plan on the robot.
+     * @param cache
+     * @param planner
+     * @param fromTrajectory creates the Plan from a BakedTrajectory.
+     * @param fromMovements creates the Plan from Movements.
+     * @return the Plan, which is already complete unless the Movements have to be built.
+     */
+    private static <T extends Plan<?>> CompletableFuture<T> getPlan(PathDefinition path, MovementType movementType, BakedTrajectory table,
+                                                                   TrajectoryCache cache, ExecutorService planner,
+                                                                   Function<BakedTrajectory, T> fromTrajectory, Function<Movement[], T> fromMovements) {
+        if (table != null) return CompletableFuture.completedFuture(fromTrajectory.apply(table));
+
+        // the key of the generated table identifies the path without building it, so without one nothing is cached
+        double timeStep = DriveConstants.BAKE_TIME_STEP;
+        long sourceKey = PrecomputedTrajectories.getKey(path.getName(), movementType);
+        long key = TrajectoryCache.getKey(path.getName(), movementType, sourceKey, timeStep);
+        BakedTrajectory cached = sourceKey != 0 ? cache.load(key, movementType, timeStep) : null;
+        if (cached != null) {
+            RobotLog.i(String.format("Loaded %s %s from the trajectory cache", path.getName(), movementType));
+            return CompletableFuture.completedFuture(fromTrajectory.apply(cached));
         }
+        return path.getSequence(movementType).buildAsync(planner).thenApply(movements -> {
+            T plan = fromMovements.apply(movements);
+            if (sourceKey != 0 && movements.length > 0) cache.bake(key, plan, timeStep);
+            return plan;
+        });
+    }
 
+    /**
+     * @return the lowest positive voltage reported by the hubs, or 0 if none report one.
+     */
+    private double getBatteryVoltage() {
+        double voltage = Double.POSITIVE_INFINITY;
+        for (VoltageSensor sensor : hardwareMap.voltageSensor) {
+            double reading = sensor.getVoltage();
+            if (reading > 0) voltage = Math.min(voltage, reading);
+        }
+        return Double.isInfinite(voltage) ? 0 : voltage;
     }
 }
@@ -10,6 +10,9 @@ import com.qualcomm.robotcore.util.ElapsedTime;
 
 import org.firstinspires.ftc.robotcore.external.Telemetry;
 import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.ChassisCommand;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.LatencyHistogram;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.LoopProfiler;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
@@ -35,6 +38,10 @@ public class DriveSubsystem extends SubsystemBase {
 
     private static double imuResetValue;
 
+    // time spent reading the IMU over I2C and writing the drive motor powers
+    private static final LatencyHistogram yawLatency = LoopProfiler.getHistogram("DriveSubsystem.getYaw");
+    private static final LatencyHistogram driveLatency = LoopProfiler.getHistogram("DriveSubsystem.drive");
+
     public DriveSubsystem(Motor leftFront, Motor rightFront, Motor leftBack, Motor rightBack, AdafruitBNO055IMU imu, LinearOpMode opMode, Telemetry telemetry) {
         this.rightBack = rightBack;
         this.leftBack = leftBack;
@@ -65,7 +72,9 @@ public class DriveSubsystem extends SubsystemBase {
      * @param turn      How much the robot should turn.
      */
     public void driveRobotCentric(double right, double forward, double turn) {
+        long startNanos = System.nanoTime();
         controller.driveRobotCentric(right, forward, turn);
+        driveLatency.recordSince(startNanos);
     }
 
     /**
@@ -77,7 +86,18 @@ public class DriveSubsystem extends SubsystemBase {
      */
     public static void driveFieldCentric(double right, double forward, double turn) {
         double yaw = getYaw();
+        long startNanos = System.nanoTime();
         controller.driveFieldCentric(right, forward, turn, yaw);
+        driveLatency.recordSince(startNanos);
+    }
+
+    /**
+     * Drives field centric with the powers collected in the given command, reading the IMU and writing the motors once.
+     *
+     * @param command   The combined output of every Plan that controls the chassis.
+     */
+    public static void drive(ChassisCommand command) {
+        driveFieldCentric(command.getX(), command.getY(), command.getTurn());
     }
 
 
@@ -128,7 +148,10 @@ public class DriveSubsystem extends SubsystemBase {
     }
 
     public static double getYaw() {
-        return normalizeAngle(imu.getAngularOrientation().firstAngle * 180.0 / Math.PI - imuResetValue);
+        long startNanos = System.nanoTime();
+        double heading = imu.getAngularOrientation().firstAngle;
+        yawLatency.recordSince(startNanos);
+        return normalizeAngle(heading * 180.0 / Math.PI - imuResetValue);
     }
 
     /**
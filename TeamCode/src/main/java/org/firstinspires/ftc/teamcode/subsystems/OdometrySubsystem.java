@@ -11,6 +11,9 @@ import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
 import com.qualcomm.robotcore.hardware.HardwareMap;
 import com.qualcomm.robotcore.util.ElapsedTime;
 
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.LatencyHistogram;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.LoopProfiler;
+
 public class OdometrySubsystem extends SubsystemBase {
 
     protected static HolonomicOdometry odometry;
@@ -43,6 +46,9 @@ public class OdometrySubsystem extends SubsystemBase {
 
     private static LinearOpMode opMode;
 
+    // time spent reading the odometers and integrating the pose
+    private static final LatencyHistogram updateLatency = LoopProfiler.getHistogram("OdometrySubsystem.update");
+
 
     /**
      * Constructs an OdometrySubsystem using components derived from a HardwareMap.
@@ -140,7 +146,9 @@ public class OdometrySubsystem extends SubsystemBase {
         lastTime = currentTime;
 
         // get current and delta pose
+        long startNanos = System.nanoTime();
         odometry.updatePose();
+        updateLatency.recordSince(startNanos);
         currentPose = odometry.getPose();
         Pose2d deltaPose = new Pose2d(
                 currentPose.getX() - lastPose.getX(),
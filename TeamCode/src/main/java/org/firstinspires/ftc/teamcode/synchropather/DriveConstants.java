@@ -14,6 +14,15 @@ public final class DriveConstants {
 	 *  Max acceleration of the robot in in/s^2.
 	 */
 	public static final double MAX_ACCELERATION = 54d;
+	/**
+	 *  Max deceleration of the robot in in/s^2, as a positive value. Drivetrains usually brake harder than they accelerate,
+	 *  so raising this lets profiles start slowing down later.
+	 */
+	public static final double MAX_DECELERATION = 54d;
+	/**
+	 *  Max jerk of the robot in in/s^3, used by Movements that opt into jerk-limited S-curve profiles.
+	 */
+	public static final double MAX_JERK = 270d;
 
 	/**
 	 *  Max angular velocity of the robot in rad/s.
@@ -23,6 +32,65 @@ public final class DriveConstants {
 	 *  Max angular acceleration of the robot in rad/s^2.
 	 */
 	public static final double MAX_ANGULAR_ACCELERATION = 4;
+	/**
+	 *  Max angular deceleration of the robot in rad/s^2, as a positive value.
+	 */
+	public static final double MAX_ANGULAR_DECELERATION = 4;
+	/**
+	 *  Max angular jerk of the robot in rad/s^3, used by Movements that opt into jerk-limited S-curve profiles.
+	 */
+	public static final double MAX_ANGULAR_JERK = 20;
+
+	/**
+	 *  Distance in inches between the left and right wheels.
+	 */
+	public static final double TRACK_WIDTH = 14d;
+	/**
+	 *  Distance in inches between the front and back wheels.
+	 */
+	public static final double WHEEL_BASE = 12d;
+	/**
+	 *  Max surface speed of a mecanum wheel in in/s, from a 312 RPM motor driving a 96 mm wheel.
+	 */
+	public static final double MAX_WHEEL_VELOCITY = 312d / 60 * Math.PI * 96 / 25.4;
+
+	/**
+	 *  Battery voltage at which the max velocities, accelerations, and jerks above were tuned. Motor speed and torque scale
+	 *  roughly linearly with voltage, so the default limits are scaled by the measured voltage divided by this one.
+	 */
+	public static final double NOMINAL_BATTERY_VOLTAGE = 12d;
+	/**
+	 *  Lowest factor the default limits may be scaled by, which guards against a sagging or misread voltage.
+	 */
+	public static final double MIN_VOLTAGE_SCALE = 0.75;
+	/**
+	 *  Highest factor the default limits may be scaled by on a fresh battery.
+	 */
+	public static final double MAX_VOLTAGE_SCALE = 1.1;
+	/**
+	 *  The voltage scale is rounded down to a multiple of this step, so that nearby voltages produce identical Plans and cache keys.
+	 */
+	public static final double VOLTAGE_SCALE_STEP = 0.025;
+
+	/**
+	 *  Max centripetal acceleration of the robot in in/s^2, which limits speed through the bends of curvature-limited splines.
+	 */
+	public static final double MAX_CENTRIPETAL_ACCELERATION = 54d;
+
+	/**
+	 *  If true, splines cap their speed by curvature along the arc length table instead of running one profile at MAX_VELOCITY.
+	 */
+	public static final boolean CURVATURE_LIMITED_SPLINES = true;
+
+	/**
+	 *  Arc length in inches between the samples of the velocity curve of a curvature-limited spline or a Movement passing through SpeedZones.
+	 */
+	public static final double CURVATURE_PROFILE_STEP = 0.25;
+
+	/**
+	 *  Max distance in inches the robot may deviate from a sharp corner between chained Movements, which sets how fast it may take the corner.
+	 */
+	public static final double JUNCTION_DEVIATION = 0.5;
 
 	/**
 	 *  The lookahead distance of the follower program in seconds.
@@ -33,5 +101,45 @@ public final class DriveConstants {
 	 *  Used for differentiating and integrating spline paths, between 0 and 1 (lower = more calculations, more detail).
 	 */
 	public static final double delta_t = 0.005;
+
+	/**
+	 *  Rate in Hz at which the LoopScheduler runs the control loop, so that the Plans see evenly spaced samples.
+	 */
+	public static final double CONTROL_LOOP_FREQUENCY = 100d;
+
+	/**
+	 *  Fraction of a control loop period a tick may start late before the LoopScheduler skips its low priority work, such as telemetry.
+	 */
+	public static final double LATE_TICK_TOLERANCE = 0.25;
+
+	/**
+	 *  Number of recent error samples the Plans' controllers differentiate through, where 5 matches a five-point stencil.
+	 */
+	public static final int DERIVATIVE_SAMPLES = 5;
+
+	/**
+	 *  Time step in seconds used when baking a Synchronizer's Plans into sampled trajectories.
+	 */
+	public static final double BAKE_TIME_STEP = 0.005;
+
+	/**
+	 *  If true, spline arc lengths are integrated from the analytic derivative with adaptive Simpson quadrature instead of summing chords every delta_t.
+	 */
+	public static final boolean ARC_LENGTH_QUADRATURE = true;
+
+	/**
+	 *  Max absolute arc length error allowed per spline segment by the adaptive quadrature, in inches.
+	 */
+	public static final double ARC_LENGTH_TOLERANCE = 1e-4;
+
+	/**
+	 *  Number of equal parameter intervals each spline segment is split into before adaptive quadrature refines them.
+	 */
+	public static final int ARC_LENGTH_MIN_INTERVALS = 16;
+
+	/**
+	 *  Max number of times the adaptive quadrature may halve each of those intervals while refining a spline segment.
+	 */
+	public static final int ARC_LENGTH_MAX_DEPTH = 12;
 	
 }
@@ -0,0 +1,48 @@
+package org.firstinspires.ftc.teamcode.synchropather.paths;
+
+import org.firstinspires.ftc.teamcode.synchropather.systems.MovementType;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.MovementSequence;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.superclasses.Movement;
+
+/**
+ * A named, fixed set of Movements for each MovementType, which can be baked into trajectory tables at build time.
+ * Subclasses must not depend on robot hardware, since they are also run on the desktop JVM.
+ */
+public abstract class PathDefinition {
+
+	/**
+	 * The asset directory that generated trajectory tables are packaged under.
+	 */
+	public static final String ASSET_DIRECTORY = "synchropather";
+
+	/**
+	 * @return the unique name of this path, used to name its generated tables.
+	 */
+	public abstract String getName();
+
+	/**
+	 * Describes the Movements of this path for the given MovementType.
+	 * @param movementType
+	 * @return the sequence of Movements, which is empty if this path has none of the given type.
+	 */
+	public abstract MovementSequence getSequence(MovementType movementType);
+
+	/**
+	 * Creates the Movements of this path for the given MovementType on the calling thread.
+	 * @param movementType
+	 * @return the Movements, or an empty array if this path has none of the given type.
+	 */
+	public Movement[] getMovements(MovementType movementType) {
+		return getSequence(movementType).build();
+	}
+
+	/**
+	 * @param name
+	 * @param movementType
+	 * @return the asset path of the generated trajectory table of the given path and MovementType.
+	 */
+	public static String getAssetName(String name, MovementType movementType) {
+		return String.format("%s/%s.%s.bin", ASSET_DIRECTORY, name, movementType.name().toLowerCase());
+	}
+
+}
@@ -0,0 +1,15 @@
+package org.firstinspires.ftc.teamcode.synchropather.paths;
+
+/**
+ * The PathDefinitions that are baked into trajectory tables at build time.
+ */
+public final class PathRegistry {
+
+	/**
+	 * Every path generated by TrajectoryGenerator. Add new paths here.
+	 */
+	public static final PathDefinition[] PATHS = {
+			new SynchropatherTestPath()
+	};
+
+}
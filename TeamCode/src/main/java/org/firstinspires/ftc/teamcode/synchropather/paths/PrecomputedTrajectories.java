@@ -0,0 +1,59 @@
+package org.firstinspires.ftc.teamcode.synchropather.paths;
+
+import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
+import org.firstinspires.ftc.teamcode.synchropather.systems.MovementType;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.BakedTrajectory;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.TrajectoryCache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Loads the trajectory tables generated at build time by TrajectoryGenerator from the app's assets.
+ */
+public final class PrecomputedTrajectories {
+
+	/**
+	 * Loads the generated trajectory table of the given path and MovementType.
+	 * @param name the name of the PathDefinition.
+	 * @param movementType
+	 * @return the trajectory, or null if it was not generated or is unreadable.
+	 */
+	public static BakedTrajectory load(String name, MovementType movementType) {
+		String assetName = PathDefinition.getAssetName(name, movementType);
+		try (InputStream input = AppUtil.getDefContext().getAssets().open(assetName)) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			byte[] chunk = new byte[1 << 16];
+			int read;
+			while ((read = input.read(chunk)) != -1) bytes.write(chunk, 0, read);
+
+			ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+			return TrajectoryCache.read(buffer, movementType);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Reads the key of the generated trajectory table of the given path and MovementType without loading its samples. The key
+	 * is the content hash of the path's Movements when the app was built, so it identifies the path without building it.
+	 * @param name the name of the PathDefinition.
+	 * @param movementType
+	 * @return the key, or 0 if the table was not generated or is unreadable.
+	 */
+	public static long getKey(String name, MovementType movementType) {
+		String assetName = PathDefinition.getAssetName(name, movementType);
+		try (InputStream input = AppUtil.getDefContext().getAssets().open(assetName)) {
+			byte[] header = new byte[TrajectoryCache.HEADER_BYTES];
+			new DataInputStream(input).readFully(header);
+			return TrajectoryCache.readKey(ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN), movementType);
+		} catch (IOException e) {
+			return 0;
+		}
+	}
+
+}
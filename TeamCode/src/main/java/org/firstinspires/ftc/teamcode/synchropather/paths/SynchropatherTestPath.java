@@ -0,0 +1,136 @@
+package org.firstinspires.ftc.teamcode.synchropather.paths;
+
+import org.firstinspires.ftc.teamcode.synchropather.systems.MovementType;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.MovementSequence;
+import org.firstinspires.ftc.teamcode.synchropather.systems.rotation.LinearRotation;
+import org.firstinspires.ftc.teamcode.synchropather.systems.rotation.RotationState;
+import org.firstinspires.ftc.teamcode.synchropather.systems.translation.CRSplineTranslation;
+import org.firstinspires.ftc.teamcode.synchropather.systems.translation.LinearTranslation;
+import org.firstinspires.ftc.teamcode.synchropather.systems.translation.TranslationState;
+
+/**
+ * The path driven by the SynchroPather Test OpMode.
+ */
+public class SynchropatherTestPath extends PathDefinition {
+
+	public static final String NAME = "SynchropatherTest";
+
+	/**
+	 * @return "SynchropatherTest"
+	 */
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public MovementSequence getSequence(MovementType movementType) {
+		switch (movementType) {
+			case TRANSLATION:
+				return getTranslationSequence();
+			case ROTATION:
+				return getRotationSequence();
+			default:
+				return new MovementSequence();
+		}
+	}
+
+	/**
+	 * @return the translation Movements of this path.
+	 */
+	private static MovementSequence getTranslationSequence() {
+		return new MovementSequence()
+				.setContinuous(true)
+				// spline1
+				.then(() -> new CRSplineTranslation(0,
+						new TranslationState(-40.75,63.5),
+						new TranslationState(-40.75,38),
+						new TranslationState(43,36)
+				))
+				// spline2
+				.then(() -> new CRSplineTranslation(0,
+						new TranslationState(43,36),
+						new TranslationState(0,12),
+						new TranslationState(-56,12)
+				))
+				// spline3
+				.then(() -> new CRSplineTranslation(0,
+						new TranslationState(-56,12),
+						new TranslationState(12,12),
+						new TranslationState(43,36)
+				))
+				// spline4
+				.then(() -> new CRSplineTranslation(0,
+						new TranslationState(43,36),
+						new TranslationState(0,12),
+						new TranslationState(-36,12),
+						new TranslationState(-56,24)
+				))
+				// spline5
+				.then(() -> new CRSplineTranslation(0,
+						new TranslationState(-56,24),
+						new TranslationState(-36,12),
+						new TranslationState(0,12),
+						new TranslationState(43,36)
+				))
+				// line1
+				.then(() -> new LinearTranslation(0,
+						new TranslationState(43,36),
+						new TranslationState(43,12)
+				))
+				// line2
+				.then(() -> new LinearTranslation(0,
+						new TranslationState(43,12),
+						new TranslationState(53,12)
+				))
+				// line3
+				.then(() -> new LinearTranslation(0,
+						new TranslationState(53,12),
+						new TranslationState(0,0)
+				))
+				// line4, after waiting 3 seconds
+				.then(3, () -> new LinearTranslation(0,
+						new TranslationState(0, 0),
+						new TranslationState(48, 60)
+				))
+				// line5
+				.then(() -> new LinearTranslation(0,
+						new TranslationState(48, 60),
+						new TranslationState(-48, 60)
+				))
+				// line6
+				.then(() -> new LinearTranslation(0,
+						new TranslationState(-48, 60),
+						new TranslationState(-48, -60)
+				))
+				// line7
+				.then(() -> new LinearTranslation(0,
+						new TranslationState(-48, -60),
+						new TranslationState(48, -60)
+				))
+				// line8
+				.then(() -> new LinearTranslation(0,
+						new TranslationState(48, -60),
+						new TranslationState(0,0)
+				))
+				// returnToStart
+				.then(() -> new CRSplineTranslation(0,
+						new TranslationState(0,0),
+						new TranslationState(-36,12),
+						new TranslationState(-40.75,63.5)
+				));
+	}
+
+	/**
+	 * @return the rotation Movements of this path.
+	 */
+	private static MovementSequence getRotationSequence() {
+		return new MovementSequence()
+				// rot1
+				.then(() -> new LinearRotation(0,
+						new RotationState(0),
+						new RotationState(Math.toRadians(360))
+				));
+	}
+
+}
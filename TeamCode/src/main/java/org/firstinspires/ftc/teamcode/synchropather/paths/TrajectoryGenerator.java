@@ -0,0 +1,132 @@
+package org.firstinspires.ftc.teamcode.synchropather.paths;
+
+import org.firstinspires.ftc.teamcode.synchropather.DriveConstants;
+import org.firstinspires.ftc.teamcode.synchropather.systems.MovementType;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.BakedTrajectory;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.TrajectoryCache;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.superclasses.Movement;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.superclasses.Plan;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.superclasses.RobotState;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Locale;
+
+/**
+ * Desktop program run by the TeamCode generateTrajectories Gradle task. Bakes every registered PathDefinition
+ * into binary trajectory tables packaged as assets, plus CSV copies for inspecting and diffing in review.
+ */
+public final class TrajectoryGenerator {
+
+	/**
+	 * Plan used only for sampling Movements, with no robot hardware behind it.
+	 */
+	private static class SampledPlan extends Plan<RobotState> {
+
+		SampledPlan(MovementType movementType, Movement... movements) {
+			super(movementType, movements);
+		}
+
+		@Override
+		public void loop() {}
+
+		@Override
+		protected RobotState createState(double[] values) {
+			return null;
+		}
+
+	}
+
+	/**
+	 * @param args the asset output directory, followed by an optional CSV output directory.
+	 * @throws IOException if a table could not be written.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			throw new IllegalArgumentException("Usage: TrajectoryGenerator <assetDirectory> [csvDirectory]");
+		}
+		File assetDirectory = new File(args[0]);
+		File csvDirectory = args.length > 1 ? new File(args[1]) : null;
+
+		double timeStep = DriveConstants.BAKE_TIME_STEP;
+		for (PathDefinition path : PathRegistry.PATHS) {
+			for (MovementType movementType : MovementType.values()) {
+				Movement[] movements = path.getMovements(movementType);
+				if (movements.length == 0) continue;
+
+				Plan<?> plan = new SampledPlan(movementType, movements);
+				BakedTrajectory trajectory = plan.bake(timeStep);
+				long key = TrajectoryCache.getKey(plan, timeStep);
+
+				String assetName = PathDefinition.getAssetName(path.getName(), movementType);
+				writeTable(new File(assetDirectory, assetName), key, trajectory);
+				if (csvDirectory != null) {
+					writeCsv(new File(csvDirectory, assetName.replaceAll("\\.bin$", ".csv")), trajectory);
+				}
+
+				System.out.printf(Locale.US, "%s: %d samples over %.3fs%n", assetName, trajectory.getSampleCount(), trajectory.getDuration());
+			}
+		}
+	}
+
+	/**
+	 * Writes the given trajectory in the TrajectoryCache binary format.
+	 * @param file
+	 * @param key
+	 * @param trajectory
+	 * @throws IOException
+	 */
+	private static void writeTable(File file, long key, BakedTrajectory trajectory) throws IOException {
+		makeParentDirectory(file);
+		ByteBuffer buffer = TrajectoryCache.write(key, trajectory);
+		try (FileOutputStream output = new FileOutputStream(file);
+			 FileChannel channel = output.getChannel()) {
+			while (buffer.hasRemaining()) channel.write(buffer);
+		}
+	}
+
+	/**
+	 * Writes the given trajectory as one CSV row per sample: time, positions, velocities, accelerations.
+	 * @param file
+	 * @param trajectory
+	 * @throws IOException
+	 */
+	private static void writeCsv(File file, BakedTrajectory trajectory) throws IOException {
+		makeParentDirectory(file);
+		int dimension = trajectory.movementType.dimension;
+		double[] p = trajectory.getPositions(), v = trajectory.getVelocities(), a = trajectory.getAccelerations();
+		try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
+			StringBuilder header = new StringBuilder("t");
+			for (String column : new String[] {"p", "v", "a"}) {
+				for (int d = 0; d < dimension; d++) header.append(',').append(column).append(d);
+			}
+			writer.println(header);
+			for (int k = 0; k < trajectory.getSampleCount(); k++) {
+				StringBuilder row = new StringBuilder(String.format(Locale.US, "%.3f", k * trajectory.getTimeStep()));
+				for (double[] values : new double[][] {p, v, a}) {
+					for (int d = 0; d < dimension; d++) {
+						row.append(String.format(Locale.US, ",%.6f", values[k*dimension + d]));
+					}
+				}
+				writer.println(row);
+			}
+		}
+	}
+
+	/**
+	 * Creates the parent directory of the given file if it does not exist.
+	 * @param file
+	 * @throws IOException
+	 */
+	private static void makeParentDirectory(File file) throws IOException {
+		File parent = file.getParentFile();
+		if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+			throw new IOException("Could not create " + parent);
+		}
+	}
+
+}
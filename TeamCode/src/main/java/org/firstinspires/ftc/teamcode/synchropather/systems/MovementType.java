@@ -8,12 +8,19 @@ public enum MovementType {
 		/**
 		 * A Movement involving the global x and y coordinates.
 		 */
-		TRANSLATION(),
+		TRANSLATION(2),
 		
 		/**
 		 * A Movement involving the global heading.
 		 */
-		ROTATION();
+		ROTATION(1);
 
-		MovementType() {};
+		/**
+		 * The number of primitive values needed to represent a RobotState of this type.
+		 */
+		public final int dimension;
+
+		MovementType(int dimension) {
+			this.dimension = dimension;
+		};
 }
\ No newline at end of file
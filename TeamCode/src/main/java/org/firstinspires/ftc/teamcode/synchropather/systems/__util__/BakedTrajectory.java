@@ -0,0 +1,179 @@
+package org.firstinspires.ftc.teamcode.synchropather.systems.__util__;
+
+import org.firstinspires.ftc.teamcode.synchropather.systems.MovementType;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.superclasses.Plan;
+
+/**
+ * Object containing a Plan's position, velocity, and acceleration sampled at a fixed time step into flat primitive arrays.
+ * Lookups are a constant-time index plus linear interpolation, independent of the Movements that produced the samples.
+ */
+public class BakedTrajectory {
+
+	/**
+	 * The type of Movements this trajectory was sampled from.
+	 */
+	public final MovementType movementType;
+
+	private final int dimension, sampleCount;
+	private final double timeStep;
+	private final double[] positions, velocities, accelerations;
+
+	/**
+	 * Creates a new BakedTrajectory from already sampled arrays. Sample k holds the values at elapsed time k*timeStep,
+	 * stored at indices [k*dimension, (k+1)*dimension).
+	 * @param movementType
+	 * @param timeStep seconds between samples, > 0.
+	 * @param positions
+	 * @param velocities
+	 * @param accelerations
+	 */
+	public BakedTrajectory(MovementType movementType, double timeStep, double[] positions, double[] velocities, double[] accelerations) {
+		if (timeStep <= 0) {
+			throw new RuntimeException(String.format("Time step %s must be positive", timeStep));
+		}
+		if (positions.length != velocities.length || positions.length != accelerations.length
+				|| positions.length == 0 || positions.length % movementType.dimension != 0) {
+			throw new RuntimeException(String.format("Sample arrays do not match the dimension of %s", movementType));
+		}
+		this.movementType = movementType;
+		this.dimension = movementType.dimension;
+		this.timeStep = timeStep;
+		this.positions = positions;
+		this.velocities = velocities;
+		this.accelerations = accelerations;
+		this.sampleCount = positions.length / dimension;
+	}
+
+	/**
+	 * Samples the given Plan from time zero through its end every timeStep seconds.
+	 * @param plan
+	 * @param timeStep seconds between samples, > 0.
+	 * @return the baked trajectory of the given Plan.
+	 */
+	public static BakedTrajectory bake(Plan<?> plan, double timeStep) {
+		if (timeStep <= 0) {
+			throw new RuntimeException(String.format("Time step %s must be positive", timeStep));
+		}
+		MovementType movementType = plan.movementType;
+		int dimension = movementType.dimension;
+		int sampleCount = (int) Math.ceil(plan.getDuration() / timeStep) + 1;
+
+		double[] positions = new double[sampleCount * dimension];
+		double[] velocities = new double[sampleCount * dimension];
+		double[] accelerations = new double[sampleCount * dimension];
+
+		MotionSample sample = new MotionSample(movementType);
+		for (int k = 0; k < sampleCount; k++) {
+			plan.sample(k * timeStep, sample);
+			System.arraycopy(sample.position, 0, positions, k * dimension, dimension);
+			System.arraycopy(sample.velocity, 0, velocities, k * dimension, dimension);
+			System.arraycopy(sample.acceleration, 0, accelerations, k * dimension, dimension);
+		}
+
+		return new BakedTrajectory(movementType, timeStep, positions, velocities, accelerations);
+	}
+
+	/**
+	 * @return the number of seconds between samples.
+	 */
+	public double getTimeStep() {
+		return timeStep;
+	}
+
+	/**
+	 * @return the number of samples in this trajectory.
+	 */
+	public int getSampleCount() {
+		return sampleCount;
+	}
+
+	/**
+	 * @return the elapsed time of the last sample.
+	 */
+	public double getDuration() {
+		return (sampleCount - 1) * timeStep;
+	}
+
+	/**
+	 * @return the flat array of sampled positions.
+	 */
+	public double[] getPositions() {
+		return positions;
+	}
+
+	/**
+	 * @return the flat array of sampled velocities.
+	 */
+	public double[] getVelocities() {
+		return velocities;
+	}
+
+	/**
+	 * @return the flat array of sampled accelerations.
+	 */
+	public double[] getAccelerations() {
+		return accelerations;
+	}
+
+	/**
+	 * Writes the interpolated position at the given elapsed time into the given buffer.
+	 * @param elapsedTime
+	 * @param out buffer of at least movementType.dimension values.
+	 */
+	public void getState(double elapsedTime, double[] out) {
+		interpolate(positions, elapsedTime, out);
+	}
+
+	/**
+	 * Writes the interpolated velocity at the given elapsed time into the given buffer.
+	 * @param elapsedTime
+	 * @param out buffer of at least movementType.dimension values.
+	 */
+	public void getVelocity(double elapsedTime, double[] out) {
+		interpolate(velocities, elapsedTime, out);
+	}
+
+	/**
+	 * Writes the interpolated position, velocity, and acceleration at the given elapsed time into the given sample.
+	 * @param elapsedTime
+	 * @param out
+	 */
+	public void sample(double elapsedTime, MotionSample out) {
+		interpolate(positions, elapsedTime, out.position);
+		interpolate(velocities, elapsedTime, out.velocity);
+		interpolate(accelerations, elapsedTime, out.acceleration);
+	}
+
+	/**
+	 * Linearly interpolates the given flat sample array at the given elapsed time, holding the first and last samples outside the baked range.
+	 * @param values
+	 * @param elapsedTime
+	 * @param out
+	 */
+	private void interpolate(double[] values, double elapsedTime, double[] out) {
+		double k = elapsedTime / timeStep;
+		int index;
+		double ratio;
+		if (!(k > 0)) {
+			index = 0;
+			ratio = 0;
+		} else if (k >= sampleCount - 1) {
+			index = sampleCount - 1;
+			ratio = 0;
+		} else {
+			index = (int) k;
+			ratio = k - index;
+		}
+
+		int i = index * dimension;
+		if (ratio == 0) {
+			System.arraycopy(values, i, out, 0, dimension);
+			return;
+		}
+		for (int d = 0; d < dimension; d++) {
+			double a = values[i + d], b = values[i + dimension + d];
+			out[d] = a + ratio * (b - a);
+		}
+	}
+
+}
@@ -0,0 +1,77 @@
+package org.firstinspires.ftc.teamcode.synchropather.systems.__util__;
+
+/**
+ * A mutable Object that collects the field-centric drive powers of every Plan that controls the chassis during one loop,
+ * so that they are sent to the motors in a single write instead of each Plan overwriting the last.
+ */
+public class ChassisCommand {
+
+	private double x, y, turn;
+	private boolean written;
+
+	/**
+	 * Creates a new empty ChassisCommand.
+	 */
+	public ChassisCommand() {
+		clear();
+	}
+
+	/**
+	 * Zeroes all powers and marks this command as unwritten, such as at the start of a loop.
+	 */
+	public void clear() {
+		x = 0;
+		y = 0;
+		turn = 0;
+		written = false;
+	}
+
+	/**
+	 * Adds the given translational powers to this command.
+	 * @param x field-centric power along the x axis.
+	 * @param y field-centric power along the y axis.
+	 */
+	public void addTranslation(double x, double y) {
+		this.x += x;
+		this.y += y;
+		written = true;
+	}
+
+	/**
+	 * Adds the given rotational power to this command.
+	 * @param turn
+	 */
+	public void addTurn(double turn) {
+		this.turn += turn;
+		written = true;
+	}
+
+	/**
+	 * @return the field-centric power along the x axis.
+	 */
+	public double getX() {
+		return x;
+	}
+
+	/**
+	 * @return the field-centric power along the y axis.
+	 */
+	public double getY() {
+		return y;
+	}
+
+	/**
+	 * @return the rotational power.
+	 */
+	public double getTurn() {
+		return turn;
+	}
+
+	/**
+	 * @return whether any Plan has added to this command since it was last cleared.
+	 */
+	public boolean isWritten() {
+		return written;
+	}
+
+}
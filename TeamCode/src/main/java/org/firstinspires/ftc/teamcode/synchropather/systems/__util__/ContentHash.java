@@ -0,0 +1,62 @@
+package org.firstinspires.ftc.teamcode.synchropather.systems.__util__;
+
+/**
+ * Object that accumulates a 64-bit FNV-1a hash over primitive values, used to key cached data by the content that produced it.
+ */
+public class ContentHash {
+
+	private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long PRIME = 0x100000001b3L;
+
+	private long hash;
+
+	/**
+	 * Creates a new ContentHash with no content.
+	 */
+	public ContentHash() {
+		this.hash = OFFSET_BASIS;
+	}
+
+	/**
+	 * Adds the eight bytes of the given long to this hash.
+	 * @param value
+	 * @return this ContentHash.
+	 */
+	public ContentHash add(long value) {
+		for (int i = 0; i < 8; i++) {
+			hash ^= (value >>> (8*i)) & 0xff;
+			hash *= PRIME;
+		}
+		return this;
+	}
+
+	/**
+	 * Adds the bits of the given double to this hash.
+	 * @param value
+	 * @return this ContentHash.
+	 */
+	public ContentHash add(double value) {
+		return add(Double.doubleToLongBits(value));
+	}
+
+	/**
+	 * Adds the length and characters of the given String to this hash.
+	 * @param value
+	 * @return this ContentHash.
+	 */
+	public ContentHash add(String value) {
+		add((long) value.length());
+		for (int i = 0; i < value.length(); i++) {
+			add((long) value.charAt(i));
+		}
+		return this;
+	}
+
+	/**
+	 * @return the current hash value.
+	 */
+	public long get() {
+		return hash;
+	}
+
+}
@@ -0,0 +1,90 @@
+package org.firstinspires.ftc.teamcode.synchropather.systems.__util__;
+
+import org.firstinspires.ftc.teamcode.synchropather.DriveConstants;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.superclasses.Movement;
+
+/**
+ * A static class that assigns nonzero speeds to the junctions between consecutive Movements, so that a chain of
+ * Movements does not stop at every waypoint.
+ */
+public final class JunctionProfiler {
+
+	private JunctionProfiler() {}
+
+	/**
+	 * Assigns a speed to every linked junction, limited by the angle between the adjacent Movements and by how
+	 * fast each Movement can accelerate or decelerate over its length, then fits every affected Movement to its new minimum duration.
+	 * Unlinked junctions and the ends of the chain are brought to rest, which can also be used to unlink junctions of an
+	 * already profiled chain.
+	 * @param movements consecutive Movements of the same MovementType.
+	 * @param linked linked[i] indicates that movements[i+1] starts exactly when movements[i] ends.
+	 */
+	public static void profile(Movement[] movements, boolean[] linked) {
+		int n = movements.length;
+		if (linked.length < n-1) {
+			throw new RuntimeException(String.format("Expected %s junction links but got %s", n-1, linked.length));
+		}
+
+		// speed at the start of each Movement, plus the end of the chain
+		double[] speeds = new double[n+1];
+		for (int i = 1; i < n; i++) {
+			if (linked[i-1]) {
+				speeds[i] = getJunctionSpeed(movements[i-1], movements[i]);
+			}
+		}
+
+		// forward pass: limit by acceleration
+		for (int i = 0; i < n; i++) {
+			speeds[i+1] = Math.min(speeds[i+1], movements[i].getMaxEndSpeed(speeds[i]));
+		}
+
+		// backward pass: limit by deceleration
+		for (int i = n-1; i >= 0; i--) {
+			speeds[i] = Math.min(speeds[i], movements[i].getMaxStartSpeed(speeds[i+1]));
+		}
+
+		// also refit Movements whose junctions were brought back to rest
+		for (int i = 0; i < n; i++) {
+			if (speeds[i] != movements[i].getStartSpeed() || speeds[i+1] != movements[i].getEndSpeed()) {
+				movements[i].setBoundarySpeeds(speeds[i], speeds[i+1]);
+			}
+		}
+	}
+
+	/**
+	 * Calculates the highest speed at which the robot can pass from one Movement into the next, using the junction deviation
+	 * model: the corner is treated as an arc that deviates at most DriveConstants.JUNCTION_DEVIATION from the sharp corner.
+	 * @param previous
+	 * @param next
+	 * @return the unsigned junction speed.
+	 */
+	public static double getJunctionSpeed(Movement previous, Movement next) {
+		if (previous.movementType != next.movementType) {
+			throw new RuntimeException(String.format("Movement type %s does not match the next Movement type %s", previous.movementType, next.movementType));
+		}
+		if (!previous.supportsBoundarySpeeds() || !next.supportsBoundarySpeeds()) return 0;
+
+		int dimension = previous.movementType.dimension;
+		double[] in = new double[dimension], out = new double[dimension];
+		previous.getEndDirection(in);
+		next.getStartDirection(out);
+
+		double dot = 0, inNorm = 0, outNorm = 0;
+		for (int i = 0; i < dimension; i++) {
+			dot += in[i]*out[i];
+			inNorm += in[i]*in[i];
+			outNorm += out[i]*out[i];
+		}
+		if (inNorm == 0 || outNorm == 0) return 0;
+
+		double maxSpeed = Math.min(previous.getMaxSpeed(), next.getMaxSpeed());
+		double maxAcceleration = Math.min(previous.getMaxAcceleration(), next.getMaxAcceleration());
+
+		// sine of half the angle between the reversed incoming direction and the outgoing direction
+		double sinHalfAngle = Math.sqrt(Math.max(0, 0.5*(1 + dot/Math.sqrt(inNorm*outNorm))));
+		if (sinHalfAngle > 1 - 1e-9) return maxSpeed;
+		double speed = Math.sqrt(maxAcceleration * DriveConstants.JUNCTION_DEVIATION * sinHalfAngle / (1 - sinHalfAngle));
+		return Math.min(maxSpeed, speed);
+	}
+
+}
@@ -0,0 +1,168 @@
+package org.firstinspires.ftc.teamcode.synchropather.systems.__util__;
+
+import org.firstinspires.ftc.teamcode.synchropather.DriveConstants;
+
+/**
+ * Immutable object containing the kinematic limits a single Movement is profiled with, so that Movements can override
+ * the global limits in DriveConstants. Translation Movements also slow down inside any of its SpeedZones.
+ * <p>
+ * The defaults are scaled by VoltageScaling, while limits passed explicitly are used as given.
+ */
+public class KinematicConstraints {
+
+	private final double maxVelocity, maxAcceleration, maxDeceleration, maxJerk;
+	private final SpeedZone[] speedZones;
+
+	/**
+	 * Creates a new KinematicConstraints object with the given limits.
+	 * @param maxVelocity > 0
+	 * @param maxAcceleration > 0
+	 * @param maxDeceleration > 0, as a positive value.
+	 * @param maxJerk > 0
+	 * @param speedZones regions with a lower speed limit, only used by translation Movements.
+	 */
+	public KinematicConstraints(double maxVelocity, double maxAcceleration, double maxDeceleration, double maxJerk, SpeedZone... speedZones) {
+		if (!(maxVelocity > 0) || !(maxAcceleration > 0) || !(maxDeceleration > 0) || !(maxJerk > 0)) {
+			throw new RuntimeException(String.format("Kinematic constraints %s, %s, %s, %s must be positive", maxVelocity, maxAcceleration, maxDeceleration, maxJerk));
+		}
+		this.maxVelocity = maxVelocity;
+		this.maxAcceleration = maxAcceleration;
+		this.maxDeceleration = maxDeceleration;
+		this.maxJerk = maxJerk;
+		this.speedZones = speedZones.clone();
+	}
+
+	/**
+	 * @return the translation limits from DriveConstants scaled for the battery voltage, without SpeedZones.
+	 */
+	public static KinematicConstraints getTranslationDefaults() {
+		return new KinematicConstraints(
+				DriveConstants.MAX_VELOCITY,
+				DriveConstants.MAX_ACCELERATION,
+				DriveConstants.MAX_DECELERATION,
+				DriveConstants.MAX_JERK
+		).scale(VoltageScaling.getScale());
+	}
+
+	/**
+	 * @return the rotation limits from DriveConstants scaled for the battery voltage.
+	 */
+	public static KinematicConstraints getRotationDefaults() {
+		return new KinematicConstraints(
+				DriveConstants.MAX_ANGULAR_VELOCITY,
+				DriveConstants.MAX_ANGULAR_ACCELERATION,
+				DriveConstants.MAX_ANGULAR_DECELERATION,
+				DriveConstants.MAX_ANGULAR_JERK
+		).scale(VoltageScaling.getScale());
+	}
+
+	/**
+	 * @param factor > 0
+	 * @return a copy of these constraints with every limit multiplied by the given factor, keeping the SpeedZones.
+	 */
+	public KinematicConstraints scale(double factor) {
+		if (factor == 1) return this;
+		return new KinematicConstraints(maxVelocity*factor, maxAcceleration*factor, maxDeceleration*factor, maxJerk*factor, speedZones);
+	}
+
+	/**
+	 * @param maxVelocity
+	 * @return a copy of these constraints with the given max velocity.
+	 */
+	public KinematicConstraints withMaxVelocity(double maxVelocity) {
+		return new KinematicConstraints(maxVelocity, maxAcceleration, maxDeceleration, maxJerk, speedZones);
+	}
+
+	/**
+	 * @param maxAcceleration
+	 * @return a copy of these constraints with the given max acceleration.
+	 */
+	public KinematicConstraints withMaxAcceleration(double maxAcceleration) {
+		return new KinematicConstraints(maxVelocity, maxAcceleration, maxDeceleration, maxJerk, speedZones);
+	}
+
+	/**
+	 * @param maxDeceleration
+	 * @return a copy of these constraints with the given max deceleration.
+	 */
+	public KinematicConstraints withMaxDeceleration(double maxDeceleration) {
+		return new KinematicConstraints(maxVelocity, maxAcceleration, maxDeceleration, maxJerk, speedZones);
+	}
+
+	/**
+	 * @param maxJerk
+	 * @return a copy of these constraints with the given max jerk.
+	 */
+	public KinematicConstraints withMaxJerk(double maxJerk) {
+		return new KinematicConstraints(maxVelocity, maxAcceleration, maxDeceleration, maxJerk, speedZones);
+	}
+
+	/**
+	 * @param speedZones
+	 * @return a copy of these constraints with the given SpeedZones replacing the current ones.
+	 */
+	public KinematicConstraints withSpeedZones(SpeedZone... speedZones) {
+		return new KinematicConstraints(maxVelocity, maxAcceleration, maxDeceleration, maxJerk, speedZones);
+	}
+
+	/**
+	 * @return the max velocity.
+	 */
+	public double getMaxVelocity() {
+		return maxVelocity;
+	}
+
+	/**
+	 * @return the max acceleration.
+	 */
+	public double getMaxAcceleration() {
+		return maxAcceleration;
+	}
+
+	/**
+	 * @return the max deceleration, as a positive value.
+	 */
+	public double getMaxDeceleration() {
+		return maxDeceleration;
+	}
+
+	/**
+	 * @return the max jerk.
+	 */
+	public double getMaxJerk() {
+		return maxJerk;
+	}
+
+	/**
+	 * @return whether any SpeedZones are set.
+	 */
+	public boolean hasSpeedZones() {
+		return speedZones.length > 0;
+	}
+
+	/**
+	 * @param x inches
+	 * @param y inches
+	 * @return the lowest max speed of the SpeedZones containing the given point, or positive infinity if there are none.
+	 */
+	public double getSpeedLimit(double x, double y) {
+		double limit = Double.POSITIVE_INFINITY;
+		for (SpeedZone zone : speedZones) {
+			limit = Math.min(limit, zone.getSpeedLimit(x, y));
+		}
+		return limit;
+	}
+
+	/**
+	 * Adds every limit and SpeedZone to the given hash.
+	 * @param hash
+	 */
+	public void hashContent(ContentHash hash) {
+		hash.add(maxVelocity).add(maxAcceleration).add(maxDeceleration).add(maxJerk);
+		hash.add((long) speedZones.length);
+		for (SpeedZone zone : speedZones) {
+			zone.hashContent(hash);
+		}
+	}
+
+}
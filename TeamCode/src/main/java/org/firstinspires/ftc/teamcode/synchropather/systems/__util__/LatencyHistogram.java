@@ -0,0 +1,161 @@
+package org.firstinspires.ftc.teamcode.synchropather.systems.__util__;
+
+import java.util.Arrays;
+
+/**
+ * Object that counts durations in nanoseconds into a fixed array of log-linear buckets, so that recording never allocates.
+ * <p>
+ * Each power of two is split into SUB_BUCKETS linear buckets, which keeps the relative error of every percentile under
+ * 1/SUB_BUCKETS from a nanosecond up to MAX_EXPONENT. Longer durations are counted in the last bucket but still update the max.
+ */
+public class LatencyHistogram {
+
+	/**
+	 * log2 of the number of linear buckets each power of two is split into.
+	 */
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/**
+	 * log2 of the longest duration in nanoseconds that gets its own bucket, about 17 seconds.
+	 */
+	private static final int MAX_EXPONENT = 34;
+
+	private static final int BUCKET_COUNT = SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+	private final String name;
+	private final long[] counts;
+	private long count, sum, max;
+
+	/**
+	 * Creates a new empty LatencyHistogram with the given name.
+	 * @param name
+	 */
+	public LatencyHistogram(String name) {
+		this.name = name;
+		this.counts = new long[BUCKET_COUNT];
+	}
+
+	/**
+	 * Counts the given duration.
+	 * @param nanos duration in nanoseconds, where negative values count as zero.
+	 */
+	public void record(long nanos) {
+		if (nanos < 0) nanos = 0;
+		counts[getIndex(nanos)]++;
+		count++;
+		sum += nanos;
+		if (nanos > max) max = nanos;
+	}
+
+	/**
+	 * Counts the time elapsed since the given System.nanoTime() reading, so that consecutive calls can be timed by chaining the result.
+	 * @param startNanos
+	 * @return the current System.nanoTime().
+	 */
+	public long recordSince(long startNanos) {
+		long now = System.nanoTime();
+		record(now - startNanos);
+		return now;
+	}
+
+	/**
+	 * Clears all counts.
+	 */
+	public void reset() {
+		Arrays.fill(counts, 0);
+		count = 0;
+		sum = 0;
+		max = 0;
+	}
+
+	/**
+	 * @return the name of this histogram.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the number of durations counted.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return the mean duration in seconds, or 0 if nothing was counted.
+	 */
+	public double getMean() {
+		return count > 0 ? sum * 1e-9 / count : 0;
+	}
+
+	/**
+	 * @return the longest duration in seconds.
+	 */
+	public double getMax() {
+		return max * 1e-9;
+	}
+
+	/**
+	 * Finds the duration that the given fraction of counts are at or below, to within the width of its bucket.
+	 * @param quantile between 0 and 1.
+	 * @return the middle of the bucket containing the quantile in seconds, never more than the max, or 0 if nothing was counted.
+	 */
+	public double getPercentile(double quantile) {
+		if (count == 0) return 0;
+		long rank = Math.max(1, (long) Math.ceil(Math.max(0, Math.min(1, quantile)) * count));
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				// the last bucket also holds every longer duration
+				if (i == BUCKET_COUNT - 1) return getMax();
+				long lower = getLowerBound(i);
+				long middle = lower + (getLowerBound(i+1) - lower - 1) / 2;
+				return Math.min(middle, max) * 1e-9;
+			}
+		}
+		return getMax();
+	}
+
+	/**
+	 * @return the count, p50, p99, and max in milliseconds on one line.
+	 */
+	public String getSummary() {
+		return String.format("n=%d p50=%.3f p99=%.3f max=%.3f ms", count, getPercentile(0.5) * 1e3, getPercentile(0.99) * 1e3, getMax() * 1e3);
+	}
+
+	/**
+	 * @return the name and summary of this histogram.
+	 */
+	@Override
+	public String toString() {
+		return String.format("%s: %s", name, getSummary());
+	}
+
+	/**
+	 * @param nanos non-negative duration.
+	 * @return the index of the bucket the given duration is counted in.
+	 */
+	private static int getIndex(long nanos) {
+		if (nanos < SUB_BUCKETS) return (int) nanos;
+		int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+		if (exponent > MAX_EXPONENT) return BUCKET_COUNT - 1;
+		int shift = exponent - SUB_BUCKET_BITS;
+		int subBucket = (int) (nanos >>> shift) - SUB_BUCKETS;
+		return SUB_BUCKETS + shift*SUB_BUCKETS + subBucket;
+	}
+
+	/**
+	 * @param index between 0 and BUCKET_COUNT, inclusive.
+	 * @return the shortest duration counted in the given bucket, or the end of the last bucket if index is BUCKET_COUNT.
+	 */
+	private static long getLowerBound(int index) {
+		if (index < SUB_BUCKETS) return index;
+		int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+		int subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+		return (long) (SUB_BUCKETS + subBucket) << shift;
+	}
+
+}
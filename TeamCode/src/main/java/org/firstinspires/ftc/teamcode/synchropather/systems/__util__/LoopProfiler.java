@@ -0,0 +1,60 @@
+package org.firstinspires.ftc.teamcode.synchropather.systems.__util__;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A static class that holds the named LatencyHistograms of the control loop, such as the time spent in each Plan and in each
+ * hardware call. Histograms are created once, typically in static fields or constructors, and then recorded into
+ * without allocation.
+ */
+public final class LoopProfiler {
+
+	private static final List<LatencyHistogram> histograms = new ArrayList<>();
+
+	private LoopProfiler() {}
+
+	/**
+	 * Returns the histogram with the given name, creating it if it does not exist yet.
+	 * @param name
+	 * @return the indicated LatencyHistogram.
+	 */
+	public static synchronized LatencyHistogram getHistogram(String name) {
+		for (LatencyHistogram histogram : histograms) {
+			if (histogram.getName().equals(name)) return histogram;
+		}
+		LatencyHistogram histogram = new LatencyHistogram(name);
+		histograms.add(histogram);
+		return histogram;
+	}
+
+	/**
+	 * @return every registered histogram in the order they were created.
+	 */
+	public static synchronized List<LatencyHistogram> getHistograms() {
+		return Collections.unmodifiableList(new ArrayList<>(histograms));
+	}
+
+	/**
+	 * Clears the counts of every registered histogram, such as at the start of an OpMode.
+	 */
+	public static synchronized void resetAll() {
+		for (LatencyHistogram histogram : histograms) {
+			histogram.reset();
+		}
+	}
+
+	/**
+	 * @return the summary of every registered histogram that has counts, one per line.
+	 */
+	public static synchronized String dump() {
+		StringBuilder builder = new StringBuilder("Loop latencies");
+		for (LatencyHistogram histogram : histograms) {
+			if (histogram.getCount() == 0) continue;
+			builder.append('\n').append(histogram);
+		}
+		return builder.toString();
+	}
+
+}
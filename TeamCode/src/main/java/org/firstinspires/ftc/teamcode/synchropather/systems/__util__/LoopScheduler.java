@@ -0,0 +1,214 @@
+package org.firstinspires.ftc.teamcode.synchropather.systems.__util__;
+
+import org.firstinspires.ftc.teamcode.synchropather.DriveConstants;
+
+/**
+ * Object that paces a control loop at a fixed rate using the monotonic System.nanoTime() clock.
+ * <p>
+ * Ticks are scheduled on a fixed grid of absolute deadlines from the start time, so the time spent sleeping or running a
+ * tick never accumulates into phase drift. A tick that starts after the next deadline has already passed is an overrun;
+ * if whole periods were missed, their deadlines are dropped instead of being run back to back.
+ */
+public class LoopScheduler {
+
+	/**
+	 * Time in nanoseconds before a deadline at which waiting switches from sleeping to yielding, since Thread.sleep()
+	 * can overshoot by about a millisecond.
+	 */
+	private static final long SPIN_NANOS = 1_000_000L;
+
+	private final long periodNanos;
+	private final long lateToleranceNanos;
+
+	private long startNanos;
+	private long deadlineNanos;
+	private long tickDeadlineNanos;
+	private long tickStartNanos;
+	private long lastTickStartNanos;
+
+	private long tickCount, overrunCount, missedTickCount, skippedCount;
+	private long maxLatenessNanos;
+
+	/**
+	 * Creates a new LoopScheduler running at DriveConstants.CONTROL_LOOP_FREQUENCY.
+	 */
+	public LoopScheduler() {
+		this(DriveConstants.CONTROL_LOOP_FREQUENCY);
+	}
+
+	/**
+	 * Creates a new LoopScheduler running at the given frequency.
+	 * @param frequency ticks per second.
+	 */
+	public LoopScheduler(double frequency) {
+		if (!(frequency > 0)) {
+			throw new RuntimeException(String.format("Loop frequency %s must be positive", frequency));
+		}
+		this.periodNanos = Math.max(1, Math.round(1e9 / frequency));
+		this.lateToleranceNanos = Math.round(periodNanos * DriveConstants.LATE_TICK_TOLERANCE);
+		start();
+	}
+
+	/**
+	 * Starts the deadline grid at the current time and clears the statistics.
+	 */
+	public void start() {
+		startNanos = System.nanoTime();
+		deadlineNanos = startNanos;
+		tickDeadlineNanos = startNanos;
+		tickStartNanos = startNanos;
+		lastTickStartNanos = startNanos;
+		tickCount = 0;
+		overrunCount = 0;
+		missedTickCount = 0;
+		skippedCount = 0;
+		maxLatenessNanos = 0;
+	}
+
+	/**
+	 * Waits until the next deadline and begins a new tick. If the deadline has already passed, returns immediately and
+	 * counts an overrun, dropping the deadlines of any whole periods that were missed so the grid keeps its phase.
+	 * @throws InterruptedException if the thread is interrupted while waiting.
+	 */
+	public void awaitTick() throws InterruptedException {
+		long now = System.nanoTime();
+		long remaining = deadlineNanos - now;
+		if (remaining > 0) {
+			// sleep coarsely, then yield up to the deadline
+			if (remaining > SPIN_NANOS) {
+				long sleepNanos = remaining - SPIN_NANOS;
+				Thread.sleep(sleepNanos / 1_000_000L, (int) (sleepNanos % 1_000_000L));
+			}
+			while ((now = System.nanoTime()) - deadlineNanos < 0) {
+				Thread.yield();
+			}
+		} else if (tickCount > 0) {
+			overrunCount++;
+			long missed = -remaining / periodNanos;
+			if (missed > 0) {
+				missedTickCount += missed;
+				deadlineNanos += missed * periodNanos;
+			}
+		}
+
+		lastTickStartNanos = tickStartNanos;
+		tickStartNanos = now;
+		tickDeadlineNanos = deadlineNanos;
+		deadlineNanos += periodNanos;
+		maxLatenessNanos = Math.max(maxLatenessNanos, getLatenessNanos());
+		tickCount++;
+	}
+
+	/**
+	 * Waits for the next tick and runs the given work in it.
+	 * @param work control work that runs every tick.
+	 * @param lowPriorityWork work such as telemetry that is skipped when the tick starts late, or null.
+	 * @throws InterruptedException if the thread is interrupted while waiting.
+	 */
+	public void runTick(Runnable work, Runnable lowPriorityWork) throws InterruptedException {
+		awaitTick();
+		work.run();
+		if (lowPriorityWork != null) runLowPriority(lowPriorityWork);
+	}
+
+	/**
+	 * Runs the given work unless the current tick started more than DriveConstants.LATE_TICK_TOLERANCE periods late or
+	 * its next deadline has already passed.
+	 * @param lowPriorityWork
+	 * @return whether the work was run.
+	 */
+	public boolean runLowPriority(Runnable lowPriorityWork) {
+		if (isLate()) {
+			skippedCount++;
+			return false;
+		}
+		lowPriorityWork.run();
+		return true;
+	}
+
+	/**
+	 * @return whether the current tick started too late or has run past its deadline, so low priority work should be skipped.
+	 */
+	public boolean isLate() {
+		return getLatenessNanos() > lateToleranceNanos || System.nanoTime() - deadlineNanos >= 0;
+	}
+
+	/**
+	 * @return the scheduled time of the current tick in seconds since start(), which advances by exactly one period per tick
+	 * unless deadlines were missed.
+	 */
+	public double getTickTime() {
+		return (tickDeadlineNanos - startNanos) * 1e-9;
+	}
+
+	/**
+	 * @return the measured time of the current tick in seconds since start().
+	 */
+	public double getTime() {
+		return (tickStartNanos - startNanos) * 1e-9;
+	}
+
+	/**
+	 * @return the fixed period between deadlines in seconds.
+	 */
+	public double getPeriod() {
+		return periodNanos * 1e-9;
+	}
+
+	/**
+	 * @return the measured time between the starts of the last two ticks in seconds.
+	 */
+	public double getLastPeriod() {
+		return (tickStartNanos - lastTickStartNanos) * 1e-9;
+	}
+
+	/**
+	 * @return how late the current tick started after its deadline in seconds.
+	 */
+	public double getLateness() {
+		return getLatenessNanos() * 1e-9;
+	}
+
+	/**
+	 * @return the latest any tick has started after its deadline in seconds.
+	 */
+	public double getMaxLateness() {
+		return maxLatenessNanos * 1e-9;
+	}
+
+	/**
+	 * @return the number of ticks started since start().
+	 */
+	public long getTickCount() {
+		return tickCount;
+	}
+
+	/**
+	 * @return the number of ticks that started after their deadline because the previous tick ran too long.
+	 */
+	public long getOverrunCount() {
+		return overrunCount;
+	}
+
+	/**
+	 * @return the number of deadlines dropped because whole periods passed without a tick.
+	 */
+	public long getMissedTickCount() {
+		return missedTickCount;
+	}
+
+	/**
+	 * @return the number of times low priority work was skipped.
+	 */
+	public long getSkippedCount() {
+		return skippedCount;
+	}
+
+	/**
+	 * @return how late the current tick started after its deadline in nanoseconds.
+	 */
+	private long getLatenessNanos() {
+		return Math.max(0, tickStartNanos - tickDeadlineNanos);
+	}
+
+}
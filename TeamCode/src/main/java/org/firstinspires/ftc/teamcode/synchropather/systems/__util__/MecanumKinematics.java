@@ -0,0 +1,54 @@
+package org.firstinspires.ftc.teamcode.synchropather.systems.__util__;
+
+import org.firstinspires.ftc.teamcode.synchropather.DriveConstants;
+
+/**
+ * A static class for converting chassis velocities into the surface speeds of the four mecanum wheels.
+ */
+public final class MecanumKinematics {
+
+	private MecanumKinematics() {}
+
+	/**
+	 * Converts a field-centric chassis velocity into wheel surface speeds, in the order left front, right front, left back, right back.
+	 * @param vx field velocity to the right, in in/s.
+	 * @param vy field velocity forward, in in/s.
+	 * @param heading robot heading counterclockwise from the field's forward direction, in radians.
+	 * @param omega angular velocity counterclockwise, in rad/s.
+	 * @param out buffer of at least 4 values.
+	 */
+	public static void toWheelSpeeds(double vx, double vy, double heading, double omega, double[] out) {
+		double cos = Math.cos(heading), sin = Math.sin(heading);
+
+		// rotate into the robot frame
+		double right = vx*cos + vy*sin;
+		double forward = -vx*sin + vy*cos;
+		double turn = omega * 0.5*(DriveConstants.TRACK_WIDTH + DriveConstants.WHEEL_BASE);
+
+		out[0] = forward + right - turn;
+		out[1] = forward - right + turn;
+		out[2] = forward - right - turn;
+		out[3] = forward + right + turn;
+	}
+
+	/**
+	 * Calculates how far the fastest wheel is beyond DriveConstants.MAX_WHEEL_VELOCITY, scaled for the battery voltage,
+	 * for the given field-centric chassis velocity.
+	 * @param vx field velocity to the right, in in/s.
+	 * @param vy field velocity forward, in in/s.
+	 * @param heading robot heading counterclockwise from the field's forward direction, in radians.
+	 * @param omega angular velocity counterclockwise, in rad/s.
+	 * @return the fastest wheel speed divided by the max wheel velocity, which is above 1 when some wheel would saturate.
+	 */
+	public static double getSaturation(double vx, double vy, double heading, double omega) {
+		double cos = Math.cos(heading), sin = Math.sin(heading);
+		double right = vx*cos + vy*sin;
+		double forward = -vx*sin + vy*cos;
+		double turn = omega * 0.5*(DriveConstants.TRACK_WIDTH + DriveConstants.WHEEL_BASE);
+
+		// the four wheels cover every sign combination of the strafe and turn terms, so the fastest one adds all three magnitudes
+		double max = Math.abs(forward) + Math.abs(right) + Math.abs(turn);
+		return max / (DriveConstants.MAX_WHEEL_VELOCITY * VoltageScaling.getScale());
+	}
+
+}
@@ -0,0 +1,65 @@
+package org.firstinspires.ftc.teamcode.synchropather.systems.__util__;
+
+import org.firstinspires.ftc.teamcode.synchropather.systems.MovementType;
+
+import java.util.Arrays;
+
+/**
+ * A mutable Object containing the position, velocity, and acceleration of a Movement at one elapsed time, stored as primitives so it can be reused every loop.
+ */
+public class MotionSample {
+
+	/**
+	 * The type of Movement this sample holds values for.
+	 */
+	public final MovementType movementType;
+
+	/**
+	 * The sampled position, with movementType.dimension values.
+	 */
+	public final double[] position;
+
+	/**
+	 * The sampled velocity, with movementType.dimension values.
+	 */
+	public final double[] velocity;
+
+	/**
+	 * The sampled acceleration, with movementType.dimension values.
+	 */
+	public final double[] acceleration;
+
+	/**
+	 * Creates a new zeroed MotionSample for the given MovementType.
+	 * @param movementType
+	 */
+	public MotionSample(MovementType movementType) {
+		this.movementType = movementType;
+		this.position = new double[movementType.dimension];
+		this.velocity = new double[movementType.dimension];
+		this.acceleration = new double[movementType.dimension];
+	}
+
+	/**
+	 * Copies the values of the given sample into this sample.
+	 * @param other a sample of the same MovementType.
+	 */
+	public void set(MotionSample other) {
+		System.arraycopy(other.position, 0, position, 0, position.length);
+		System.arraycopy(other.velocity, 0, velocity, 0, velocity.length);
+		System.arraycopy(other.acceleration, 0, acceleration, 0, acceleration.length);
+	}
+
+	/**
+	 * @return a String containing the position, velocity, and acceleration of this sample.
+	 */
+	public String toString() {
+		return String.format("%s{p=%s,v=%s,a=%s}",
+				movementType,
+				Arrays.toString(position),
+				Arrays.toString(velocity),
+				Arrays.toString(acceleration)
+		);
+	}
+
+}
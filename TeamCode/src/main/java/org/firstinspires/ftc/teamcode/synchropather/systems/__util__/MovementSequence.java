@@ -0,0 +1,127 @@
+package org.firstinspires.ftc.teamcode.synchropather.systems.__util__;
+
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.superclasses.Movement;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * An ordered list of Movement factories where each Movement starts when the previous one ends, plus an optional delay.
+ * Since a Movement's shape does not depend on its start time, the factories can run in parallel and the results are chained afterwards.
+ */
+public class MovementSequence {
+
+	private final ArrayList<Supplier<? extends Movement>> factories;
+	private final ArrayList<Double> delays;
+	private boolean continuous;
+
+	/**
+	 * Creates a new empty MovementSequence.
+	 */
+	public MovementSequence() {
+		this.factories = new ArrayList<>();
+		this.delays = new ArrayList<>();
+		this.continuous = false;
+	}
+
+	/**
+	 * Sets whether consecutive Movements without a delay between them are joined at nonzero speed instead of stopping.
+	 * @param continuous
+	 * @return this MovementSequence.
+	 */
+	public MovementSequence setContinuous(boolean continuous) {
+		this.continuous = continuous;
+		return this;
+	}
+
+	/**
+	 * Appends a Movement that starts as soon as the previous one ends.
+	 * @param factory creates the Movement starting at time zero.
+	 * @return this MovementSequence.
+	 */
+	public MovementSequence then(Supplier<? extends Movement> factory) {
+		return then(0, factory);
+	}
+
+	/**
+	 * Appends a Movement that starts the given delay after the previous one ends.
+	 * @param delay seconds, >= 0.
+	 * @param factory creates the Movement starting at time zero.
+	 * @return this MovementSequence.
+	 */
+	public MovementSequence then(double delay, Supplier<? extends Movement> factory) {
+		if (delay < 0) {
+			throw new RuntimeException(String.format("Delay %s must not be negative", delay));
+		}
+		factories.add(factory);
+		delays.add(delay);
+		return this;
+	}
+
+	/**
+	 * @return the number of Movements in this sequence.
+	 */
+	public int size() {
+		return factories.size();
+	}
+
+	/**
+	 * Creates and chains every Movement on the calling thread.
+	 * @return the chained Movements.
+	 */
+	public Movement[] build() {
+		Movement[] movements = new Movement[size()];
+		for (int i = 0; i < movements.length; i++) {
+			movements[i] = factories.get(i).get();
+		}
+		return chain(movements);
+	}
+
+	/**
+	 * Creates every Movement in parallel on the given Executor and chains them once all are done.
+	 * @param executor
+	 * @return a future completing with the chained Movements.
+	 */
+	public CompletableFuture<Movement[]> buildAsync(Executor executor) {
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		CompletableFuture<? extends Movement>[] futures = new CompletableFuture[size()];
+		for (int i = 0; i < futures.length; i++) {
+			futures[i] = CompletableFuture.supplyAsync(factories.get(i), executor);
+		}
+
+		return CompletableFuture.allOf(futures).thenApply(done -> {
+			Movement[] movements = new Movement[futures.length];
+			for (int i = 0; i < movements.length; i++) {
+				movements[i] = futures[i].join();
+			}
+			return chain(movements);
+		});
+	}
+
+	/**
+	 * Moves each Movement to start when the previous one ends, plus its delay, keeping its duration.
+	 * If this sequence is continuous, junction speeds are assigned first, which shortens the Movements.
+	 * @param movements
+	 * @return the given Movements.
+	 */
+	private Movement[] chain(Movement[] movements) {
+		if (continuous) {
+			boolean[] linked = new boolean[Math.max(0, movements.length-1)];
+			for (int i = 0; i < linked.length; i++) {
+				linked[i] = delays.get(i+1) == 0;
+			}
+			JunctionProfiler.profile(movements, linked);
+		}
+
+		double endTime = 0;
+		for (int i = 0; i < movements.length; i++) {
+			double startTime = endTime + delays.get(i);
+			endTime = startTime + movements[i].getDuration();
+			movements[i].setTimeSpan(new TimeSpan(startTime, endTime));
+		}
+		return movements;
+	}
+
+}
@@ -0,0 +1,124 @@
+package org.firstinspires.ftc.teamcode.synchropather.systems.__util__;
+
+/**
+ * Fixed-capacity ring buffer of (time, value) samples stored in primitive arrays, such as the error of a Plan's controller
+ * at each loop. Adding a sample overwrites the oldest one once full, so nothing is allocated after construction.
+ * <p>
+ * Derivatives are taken from the polynomial through the stored samples, so they stay exact for unevenly spaced times.
+ */
+public class SampleBuffer {
+
+	private final double[] times, values;
+
+	/**
+	 * The index of the newest sample and the number of stored samples.
+	 */
+	private int head, size;
+
+	/**
+	 * Creates a new empty SampleBuffer that holds the given number of samples.
+	 * @param capacity at least 2.
+	 */
+	public SampleBuffer(int capacity) {
+		if (capacity < 2) {
+			throw new RuntimeException(String.format("SampleBuffer capacity %s must be at least 2", capacity));
+		}
+		this.times = new double[capacity];
+		this.values = new double[capacity];
+		this.head = capacity - 1;
+		this.size = 0;
+	}
+
+	/**
+	 * Adds a sample, overwriting the oldest one if full. A sample that is not later than the newest one replaces its value instead.
+	 * @param time seconds.
+	 * @param value
+	 */
+	public void add(double time, double value) {
+		if (size > 0 && time <= times[head]) {
+			values[head] = value;
+			return;
+		}
+		head = (head + 1) % times.length;
+		times[head] = time;
+		values[head] = value;
+		if (size < times.length) size++;
+	}
+
+	/**
+	 * Removes all samples.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * @return the number of stored samples.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the max number of stored samples.
+	 */
+	public int capacity() {
+		return times.length;
+	}
+
+	/**
+	 * @param age 0 for the newest sample, up to size()-1 for the oldest.
+	 * @return the time of the indicated sample.
+	 */
+	public double getTime(int age) {
+		return times[getIndex(age)];
+	}
+
+	/**
+	 * @param age 0 for the newest sample, up to size()-1 for the oldest.
+	 * @return the value of the indicated sample.
+	 */
+	public double getValue(int age) {
+		return values[getIndex(age)];
+	}
+
+	/**
+	 * Calculates the derivative at the newest sample of the interpolating polynomial through every stored sample, which is
+	 * the backward difference formula of order size()-1 generalized to uneven spacing.
+	 * @return the rate of change of the value per second, or 0 if fewer than 2 samples are stored.
+	 */
+	public double getDerivative() {
+		if (size < 2) return 0;
+		double t0 = getTime(0);
+
+		// the weight of the newest sample is the sum of 1/(t0 - tk), and every other sample j has weight
+		// prod_{k != 0, j} (t0 - tk) / prod_{k != j} (tj - tk)
+		double derivative = 0;
+		double newestWeight = 0;
+		for (int j = 1; j < size; j++) {
+			double tj = getTime(j);
+			newestWeight += 1 / (t0 - tj);
+			double weight = 1 / (tj - t0);
+			for (int k = 1; k < size; k++) {
+				if (k == j) continue;
+				double tk = getTime(k);
+				weight *= (t0 - tk) / (tj - tk);
+			}
+			derivative += weight * getValue(j);
+		}
+		return derivative + newestWeight * getValue(0);
+	}
+
+	/**
+	 * @param age 0 for the newest sample, up to size()-1 for the oldest.
+	 * @return the index of the indicated sample in the arrays.
+	 */
+	private int getIndex(int age) {
+		if (age < 0 || age >= size) {
+			throw new RuntimeException(String.format("Sample %s is out of range for %s stored samples", age, size));
+		}
+		int index = head - age;
+		return index < 0 ? index + times.length : index;
+	}
+
+}
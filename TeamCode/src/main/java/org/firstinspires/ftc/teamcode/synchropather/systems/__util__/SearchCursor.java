@@ -0,0 +1,85 @@
+package org.firstinspires.ftc.teamcode.synchropather.systems.__util__;
+
+/**
+ * Object that finds the interval containing a key in a sorted array, starting from the interval found by the previous search.
+ * Keys that only move forward in small steps, like elapsed time in a control loop, are found in amortized constant time.
+ */
+public class SearchCursor {
+
+	/**
+	 * The number of intervals to step forward before falling back to binary search.
+	 */
+	private static final int MAX_STEPS = 4;
+
+	private int index;
+
+	/**
+	 * Creates a new SearchCursor at index zero.
+	 */
+	public SearchCursor() {
+		this.index = 0;
+	}
+
+	/**
+	 * Moves this cursor back to index zero.
+	 */
+	public void reset() {
+		index = 0;
+	}
+
+	/**
+	 * @return the index returned by the last search.
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	/**
+	 * Finds the last index whose value is at or before the given key, walking forward from the previous result
+	 * and binary searching on backwards jumps or large skips.
+	 * @param keys non-empty array sorted in ascending order.
+	 * @param key
+	 * @return the largest i such that keys[i] <= key, or 0 if key < keys[0].
+	 */
+	public int search(double[] keys, double key) {
+		int last = keys.length - 1;
+		int i = Math.min(index, last);
+
+		if (keys[i] > key) {
+			// backwards jump
+			index = binarySearch(keys, 0, i, key);
+			return index;
+		}
+
+		for (int step = 0; step < MAX_STEPS; step++) {
+			if (i == last || keys[i+1] > key) {
+				index = i;
+				return index;
+			}
+			i++;
+		}
+
+		// large skip forward
+		index = binarySearch(keys, i, last, key);
+		return index;
+	}
+
+	/**
+	 * Binary searches the given range of keys.
+	 * @param keys
+	 * @param lo lower bound of the range, with keys[lo] <= key unless lo is zero.
+	 * @param hi upper bound of the range.
+	 * @param key
+	 * @return the largest i in [lo,hi] such that keys[i] <= key, or lo if there is none.
+	 */
+	private static int binarySearch(double[] keys, int lo, int hi, double key) {
+		if (keys[hi] <= key) return hi;
+		while (hi - lo > 1) {
+			int mid = (lo + hi) >>> 1;
+			if (keys[mid] <= key) lo = mid;
+			else hi = mid;
+		}
+		return lo;
+	}
+
+}
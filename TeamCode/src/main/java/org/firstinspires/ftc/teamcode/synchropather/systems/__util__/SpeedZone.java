@@ -0,0 +1,63 @@
+package org.firstinspires.ftc.teamcode.synchropather.systems.__util__;
+
+/**
+ * Object representing an axis-aligned rectangle of the field where translation Movements may not exceed a given speed.
+ */
+public class SpeedZone {
+
+	private final double minX, minY, maxX, maxY;
+	private final double maxSpeed;
+
+	/**
+	 * Creates a new SpeedZone spanning the rectangle between the two given corners.
+	 * @param x1 inches
+	 * @param y1 inches
+	 * @param x2 inches
+	 * @param y2 inches
+	 * @param maxSpeed in/s, > 0.
+	 */
+	public SpeedZone(double x1, double y1, double x2, double y2, double maxSpeed) {
+		if (!(maxSpeed > 0)) {
+			throw new RuntimeException(String.format("SpeedZone max speed %s must be positive", maxSpeed));
+		}
+		this.minX = Math.min(x1, x2);
+		this.minY = Math.min(y1, y2);
+		this.maxX = Math.max(x1, x2);
+		this.maxY = Math.max(y1, y2);
+		this.maxSpeed = maxSpeed;
+	}
+
+	/**
+	 * @param x inches
+	 * @param y inches
+	 * @return whether the given point lies inside or on the edge of this SpeedZone.
+	 */
+	public boolean contains(double x, double y) {
+		return minX <= x && x <= maxX && minY <= y && y <= maxY;
+	}
+
+	/**
+	 * @return the max speed inside this SpeedZone in in/s.
+	 */
+	public double getMaxSpeed() {
+		return maxSpeed;
+	}
+
+	/**
+	 * @param x inches
+	 * @param y inches
+	 * @return the max speed if the given point is inside this SpeedZone, otherwise positive infinity.
+	 */
+	public double getSpeedLimit(double x, double y) {
+		return contains(x, y) ? maxSpeed : Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Adds the corners and max speed of this SpeedZone to the given hash.
+	 * @param hash
+	 */
+	public void hashContent(ContentHash hash) {
+		hash.add(minX).add(minY).add(maxX).add(maxY).add(maxSpeed);
+	}
+
+}
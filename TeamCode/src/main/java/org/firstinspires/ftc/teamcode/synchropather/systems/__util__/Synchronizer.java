@@ -2,6 +2,8 @@ package org.firstinspires.ftc.teamcode.synchropather.systems.__util__;
 
 import com.qualcomm.robotcore.util.ElapsedTime;
 
+import org.firstinspires.ftc.teamcode.subsystems.DriveSubsystem;
+import org.firstinspires.ftc.teamcode.synchropather.DriveConstants;
 import org.firstinspires.ftc.teamcode.synchropather.systems.MovementType;
 import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.superclasses.Plan;
 import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.superclasses.RobotState;
@@ -13,6 +15,35 @@ public class Synchronizer {
 
 	private ElapsedTime runtime;
 	private Plan[] plans;
+
+	/**
+	 * The Plans indexed by MovementType ordinal, with null entries for types that have no Plan.
+	 */
+	private final Plan[] plansByType;
+
+	/**
+	 * If not null, maps the runtime to the elapsed time targeted by the Plans.
+	 */
+	private TimeWarp timeWarp;
+
+	/**
+	 * The time spent in each call of loop(), between the starts of consecutive calls, and in each Plan's loop(), in the
+	 * same order as plans.
+	 */
+	private final LatencyHistogram loopLatency, periodLatency;
+	private final LatencyHistogram[] planLatencies;
+	private long lastLoopNanos;
+
+	/**
+	 * Collects the drive powers of every Plan in a loop, so that the chassis is written once per loop.
+	 */
+	private final ChassisCommand chassisCommand = new ChassisCommand();
+
+	/**
+	 * If not null, runs at the start of every loop before the Plans, such as to clear the bulk read cache and update odometry.
+	 */
+	private Runnable hardwareUpdate;
+	private final LatencyHistogram hardwareUpdateLatency;
 	
 	/**
 	 * Creates a new Synchronizer object with the given Plans.
@@ -20,6 +51,21 @@ public class Synchronizer {
 	 */
 	public Synchronizer(Plan... plans) {
 		this.plans = plans;
+		this.plansByType = new Plan[MovementType.values().length];
+		for (Plan plan : plans) {
+			// throw error if a type is planned twice
+			if (plansByType[plan.movementType.ordinal()] != null) {
+				throw new RuntimeException(String.format("Synchronizer already contains a Plan of type %s", plan.movementType));
+			}
+			plansByType[plan.movementType.ordinal()] = plan;
+		}
+		this.loopLatency = LoopProfiler.getHistogram("Synchronizer.loop");
+		this.periodLatency = LoopProfiler.getHistogram("Synchronizer.period");
+		this.hardwareUpdateLatency = LoopProfiler.getHistogram("Synchronizer.hardwareUpdate");
+		this.planLatencies = new LatencyHistogram[plans.length];
+		for (int i = 0; i < plans.length; i++) {
+			planLatencies[i] = LoopProfiler.getHistogram(plans[i].getClass().getSimpleName() + ".loop");
+		}
 		this.runtime = new ElapsedTime();
 		this.runtime.reset();
 	}
@@ -31,14 +77,128 @@ public class Synchronizer {
 		runtime.reset();
 	}
 
+	/**
+	 * Precomputes every Plan into a BakedTrajectory sampled every DriveConstants.BAKE_TIME_STEP seconds.
+	 */
+	public void bake() {
+		bake(DriveConstants.BAKE_TIME_STEP);
+	}
+
+	/**
+	 * Precomputes every Plan into a BakedTrajectory sampled every timeStep seconds, so that all later lookups
+	 * are a constant-time index plus interpolation.
+	 * @param timeStep seconds between samples, > 0.
+	 */
+	public void bake(double timeStep) {
+		for (Plan plan : plans) {
+			plan.bake(timeStep);
+		}
+	}
+
+	/**
+	 * Moves every Movement to the earliest TimeSpan allowed by its minimum duration, the order within its Plan, and the given
+	 * synchronization points, then rebuilds the TimeWarp if there is one. Baked Plans must be baked again afterwards.
+	 * @param constraints
+	 * @return the new duration of this Synchronizer.
+	 */
+	public double retime(TimingConstraints constraints) {
+		constraints.solve(plans);
+		if (timeWarp != null) {
+			limitWheelSpeeds(timeWarp.getTimeStep());
+		}
+		return getDuration();
+	}
+
+	/**
+	 * Slows the Plans down wherever the combined translation and rotation would drive a mecanum wheel past
+	 * DriveConstants.MAX_WHEEL_VELOCITY, sampled every DriveConstants.BAKE_TIME_STEP seconds.
+	 */
+	public void limitWheelSpeeds() {
+		limitWheelSpeeds(DriveConstants.BAKE_TIME_STEP);
+	}
+
+	/**
+	 * Slows the Plans down wherever the combined translation and rotation would drive a mecanum wheel past
+	 * DriveConstants.MAX_WHEEL_VELOCITY, sampled every timeStep seconds of plan time.
+	 * @param timeStep seconds between samples, > 0.
+	 */
+	public void limitWheelSpeeds(double timeStep) {
+		timeWarp = TimeWarp.limitWheelSpeeds(getPlan(MovementType.TRANSLATION), getPlan(MovementType.ROTATION), timeStep);
+	}
+
+	/**
+	 * Maps the runtime through the given TimeWarp, or runs the Plans in real time again if it is null.
+	 * @param timeWarp
+	 */
+	public void setTimeWarp(TimeWarp timeWarp) {
+		this.timeWarp = timeWarp;
+	}
+
+	/**
+	 * @return the TimeWarp applied to the runtime, or null if the Plans run in real time.
+	 */
+	public TimeWarp getTimeWarp() {
+		return timeWarp;
+	}
+
+	/**
+	 * @param runtime seconds since the runtime was reset.
+	 * @return the elapsed time targeted by the Plans at the given runtime.
+	 */
+	public double getPlanTime(double runtime) {
+		return timeWarp != null ? timeWarp.getPlanTime(runtime) : runtime;
+	}
+
 	/**
 	 * Advances the current target elapsedTime and sends control commands to all plans.
 	 */
 	public void loop() {
-		setTarget(runtime.seconds());
-		for (Plan plan : plans) {
-			plan.loop();
+		loop(runtime.seconds());
+	}
+
+	/**
+	 * Advances the current target elapsedTime to the given runtime and sends control commands to all plans, combining their
+	 * chassis outputs into a single drive write.
+	 * Used by fixed-rate loops, which pass the scheduled time of each tick so that targets are evenly spaced.
+	 * @param runtime seconds since the runtime was reset.
+	 */
+	public void loop(double runtime) {
+		long startNanos = System.nanoTime();
+		if (lastLoopNanos != 0) periodLatency.record(startNanos - lastLoopNanos);
+		lastLoopNanos = startNanos;
+
+		long nanos = startNanos;
+		if (hardwareUpdate != null) {
+			hardwareUpdate.run();
+			nanos = hardwareUpdateLatency.recordSince(nanos);
+		}
+
+		setTarget(getPlanTime(runtime));
+		chassisCommand.clear();
+		for (int i = 0; i < plans.length; i++) {
+			plans[i].loop(chassisCommand);
+			nanos = planLatencies[i].recordSince(nanos);
+		}
+		if (chassisCommand.isWritten()) {
+			DriveSubsystem.drive(chassisCommand);
 		}
+		loopLatency.recordSince(startNanos);
+	}
+
+	/**
+	 * Sets the hardware reads that run once at the start of every loop, before any Plan reads the robot's state.
+	 * @param hardwareUpdate such as clearing the bulk read cache and updating odometry, or null for none.
+	 */
+	public void setHardwareUpdate(Runnable hardwareUpdate) {
+		this.hardwareUpdate = hardwareUpdate;
+	}
+
+	/**
+	 * @return the mean number of calls to loop() per second, or 0 if it has been called less than twice.
+	 */
+	public double getLoopFrequency() {
+		double period = periodLatency.getMean();
+		return period > 0 ? 1 / period : 0;
 	}
 
 	/**
@@ -58,12 +218,8 @@ public class Synchronizer {
 	 */
 	@SuppressWarnings("unchecked")
 	public RobotState getState(MovementType movementType, double elapsedTime) {
-		for (Plan plan : plans) {
-			if (plan.movementType == movementType) {
-				return plan.getState(elapsedTime);
-			}
-		}
-		return null;
+		Plan plan = getPlan(movementType);
+		return plan != null ? plan.getState(elapsedTime) : null;
 	}
 
 	/**
@@ -74,23 +230,91 @@ public class Synchronizer {
 	 */
 	@SuppressWarnings("unchecked")
 	public RobotState getVelocity(MovementType movementType, double elapsedTime) {
+		Plan plan = getPlan(movementType);
+		return plan != null ? plan.getVelocity(elapsedTime) : null;
+	}
+
+	/**
+	 * Writes the RobotState at the given elapsedTime within the Plan of the given movementType into the given buffer without allocating.
+	 * @param movementType
+	 * @param elapsedTime
+	 * @param out buffer of at least movementType.dimension values.
+	 * @return true if the Plan exists, false otherwise.
+	 */
+	public boolean getState(MovementType movementType, double elapsedTime, double[] out) {
+		Plan plan = getPlan(movementType);
+		if (plan == null) return false;
+		plan.getState(elapsedTime, out);
+		return true;
+	}
+
+	/**
+	 * Writes the velocity RobotState at the given elapsedTime within the Plan of the given movementType into the given buffer without allocating.
+	 * @param movementType
+	 * @param elapsedTime
+	 * @param out buffer of at least movementType.dimension values.
+	 * @return true if the Plan exists, false otherwise.
+	 */
+	public boolean getVelocity(MovementType movementType, double elapsedTime, double[] out) {
+		Plan plan = getPlan(movementType);
+		if (plan == null) return false;
+		plan.getVelocity(elapsedTime, out);
+		return true;
+	}
+
+	/**
+	 * Writes the position, velocity, and acceleration at the given elapsedTime within the Plan of the given movementType into the given sample.
+	 * @param movementType
+	 * @param elapsedTime
+	 * @param out
+	 * @return true if the Plan exists, false otherwise.
+	 */
+	public boolean sample(MovementType movementType, double elapsedTime, MotionSample out) {
+		Plan plan = getPlan(movementType);
+		if (plan == null) return false;
+		plan.sample(elapsedTime, out);
+		return true;
+	}
+
+	/**
+	 * Returns the position, velocity, and acceleration at the given elapsedTime within the Plan of the given movementType.
+	 * @param movementType
+	 * @param elapsedTime
+	 * @return a new MotionSample, or null if the Plan does not exist.
+	 */
+	public MotionSample sample(MovementType movementType, double elapsedTime) {
+		MotionSample sample = new MotionSample(movementType);
+		return sample(movementType, elapsedTime, sample) ? sample : null;
+	}
+
+	/**
+	 * Returns the Plan of the given movementType in constant time.
+	 * @param movementType
+	 * @return the indicated Plan, or null if it does not exist.
+	 */
+	public Plan getPlan(MovementType movementType) {
+		return plansByType[movementType.ordinal()];
+	}
+
+	/**
+	 * @return whether every Plan contained within this Synchronizer has finished executing at the current target.
+	 */
+	public boolean isFinished() {
 		for (Plan plan : plans) {
-			if (plan.movementType == movementType) {
-				return plan.getVelocity(elapsedTime);
-			}
+			if (!plan.isFinished()) return false;
 		}
-		return null;
+		return true;
 	}
 
 	/**
-	 * @return the minimum duration needed to execute all Plans contained within this Synchronizer.
+	 * @return the minimum duration needed to execute all Plans contained within this Synchronizer, including any slowdown from the TimeWarp.
 	 */
 	public double getDuration() {
 		double max = -1;
 		for (Plan plan : plans) {
 			max = Math.max(max, plan.getDuration());
 		}
-		return max;
+		return timeWarp != null ? timeWarp.getRuntime(max) : max;
 	}
 
 }
@@ -0,0 +1,129 @@
+package org.firstinspires.ftc.teamcode.synchropather.systems.__util__;
+
+import org.firstinspires.ftc.teamcode.synchropather.systems.MovementType;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.superclasses.Plan;
+
+/**
+ * A monotonic mapping from the Synchronizer's runtime to the elapsed time of its Plans, used to slow the Plans down
+ * only where following them in real time is not feasible.
+ */
+public class TimeWarp {
+
+	private final double timeStep;
+
+	/**
+	 * The runtime at which each plan time k*timeStep is reached.
+	 */
+	private final double[] runtimes;
+	private final SearchCursor cursor;
+
+	/**
+	 * Creates a new TimeWarp from the runtimes at which evenly spaced plan times are reached.
+	 * @param timeStep plan time between samples, > 0.
+	 * @param runtimes nondecreasing runtime at each plan time k*timeStep, starting at 0.
+	 */
+	public TimeWarp(double timeStep, double[] runtimes) {
+		if (!(timeStep > 0)) {
+			throw new RuntimeException(String.format("Time step %s must be positive", timeStep));
+		}
+		if (runtimes.length < 2) {
+			throw new RuntimeException(String.format("Expected at least 2 runtimes but got %s", runtimes.length));
+		}
+		this.timeStep = timeStep;
+		this.runtimes = runtimes;
+		this.cursor = new SearchCursor();
+	}
+
+	/**
+	 * Samples the combined velocity of the given Plans every timeStep seconds and stretches every interval where a mecanum
+	 * wheel would exceed DriveConstants.MAX_WHEEL_VELOCITY, by the factor it would exceed it by.
+	 * @param translationPlan may be null.
+	 * @param rotationPlan may be null.
+	 * @param timeStep plan time between samples, > 0.
+	 * @return the resulting TimeWarp.
+	 */
+	public static TimeWarp limitWheelSpeeds(Plan<?> translationPlan, Plan<?> rotationPlan, double timeStep) {
+		double duration = Math.max(
+				translationPlan != null ? translationPlan.getDuration() : 0,
+				rotationPlan != null ? rotationPlan.getDuration() : 0
+		);
+		int n = Math.max(1, (int) Math.ceil(duration / timeStep));
+
+		MotionSample translation = new MotionSample(MovementType.TRANSLATION);
+		MotionSample rotation = new MotionSample(MovementType.ROTATION);
+		double[] runtimes = new double[n+1];
+		double previous = 1;
+		for (int k = 0; k <= n; k++) {
+			double t = k * timeStep;
+			if (translationPlan != null) translationPlan.sample(t, translation);
+			if (rotationPlan != null) rotationPlan.sample(t, rotation);
+
+			double saturation = Math.max(1, MecanumKinematics.getSaturation(
+					translation.velocity[0],
+					translation.velocity[1],
+					rotation.position[0],
+					rotation.velocity[0]
+			));
+
+			// each interval is stretched by the worse of its two ends
+			if (k > 0) {
+				runtimes[k] = runtimes[k-1] + Math.max(previous, saturation) * timeStep;
+			}
+			previous = saturation;
+		}
+		return new TimeWarp(timeStep, runtimes);
+	}
+
+	/**
+	 * Converts a Synchronizer runtime into the plan time to target, running at real time outside of the sampled range.
+	 * @param runtime
+	 * @return the plan time reached at the given runtime.
+	 */
+	public double getPlanTime(double runtime) {
+		int last = runtimes.length - 1;
+		if (runtime <= 0) return runtime;
+		if (runtime >= runtimes[last]) return last*timeStep + (runtime - runtimes[last]);
+
+		int i = Math.min(last-1, cursor.search(runtimes, runtime));
+		double span = runtimes[i+1] - runtimes[i];
+		double ratio = span > 0 ? (runtime - runtimes[i]) / span : 0;
+		return (i + ratio) * timeStep;
+	}
+
+	/**
+	 * Converts a plan time into the Synchronizer runtime at which it is reached.
+	 * @param planTime
+	 * @return the runtime at which the given plan time is reached.
+	 */
+	public double getRuntime(double planTime) {
+		int last = runtimes.length - 1;
+		if (planTime <= 0) return planTime;
+		if (planTime >= last*timeStep) return runtimes[last] + (planTime - last*timeStep);
+
+		int i = Math.min(last-1, (int) (planTime / timeStep));
+		double ratio = planTime/timeStep - i;
+		return runtimes[i] + ratio * (runtimes[i+1] - runtimes[i]);
+	}
+
+	/**
+	 * @return the plan time between samples.
+	 */
+	public double getTimeStep() {
+		return timeStep;
+	}
+
+	/**
+	 * @return the runtime needed to reach the end of the sampled plan time.
+	 */
+	public double getDuration() {
+		return runtimes[runtimes.length-1];
+	}
+
+	/**
+	 * @return the plan time covered by this TimeWarp.
+	 */
+	public double getPlanDuration() {
+		return (runtimes.length-1) * timeStep;
+	}
+
+}
@@ -0,0 +1,256 @@
+package org.firstinspires.ftc.teamcode.synchropather.systems.__util__;
+
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.superclasses.Movement;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.superclasses.Plan;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * A set of synchronization points between Movements, solved together with each Movement's minimum duration for the
+ * TimeSpans that finish every Plan as early as possible.
+ * <p>
+ * Every constraint is a difference constraint between the start and end events of two Movements, so the earliest
+ * feasible time of every event is its longest path from time zero in the constraint graph.
+ */
+public class TimingConstraints {
+
+	/**
+	 * A constraint of the form time(to) >= time(from) + lag, where each event is a Movement's start or end.
+	 */
+	private static class Constraint {
+		final Movement from, to;
+		final boolean fromEnd, toEnd;
+		final double lag;
+
+		Constraint(Movement from, boolean fromEnd, Movement to, boolean toEnd, double lag) {
+			this.from = from;
+			this.fromEnd = fromEnd;
+			this.to = to;
+			this.toEnd = toEnd;
+			this.lag = lag;
+		}
+	}
+
+	/**
+	 * An edge of the constraint graph meaning time(to) >= time(from) + weight, between event indices.
+	 */
+	private static class Edge {
+		final int from, to;
+		final double weight;
+
+		Edge(int from, int to, double weight) {
+			this.from = from;
+			this.to = to;
+			this.weight = weight;
+		}
+	}
+
+	private final ArrayList<Constraint> constraints;
+
+	/**
+	 * Creates a new TimingConstraints object without any synchronization points.
+	 */
+	public TimingConstraints() {
+		this.constraints = new ArrayList<>();
+	}
+
+	/**
+	 * Requires the given Movement to start at least lag seconds after the other Movement ends.
+	 * @param movement
+	 * @param other
+	 * @param lag seconds, may be negative to allow overlap.
+	 * @return this TimingConstraints.
+	 */
+	public TimingConstraints startsAfterEnd(Movement movement, Movement other, double lag) {
+		constraints.add(new Constraint(other, true, movement, false, lag));
+		return this;
+	}
+
+	/**
+	 * Requires the given Movement to start at least lag seconds after the other Movement starts.
+	 * @param movement
+	 * @param other
+	 * @param lag seconds, may be negative.
+	 * @return this TimingConstraints.
+	 */
+	public TimingConstraints startsAfterStart(Movement movement, Movement other, double lag) {
+		constraints.add(new Constraint(other, false, movement, false, lag));
+		return this;
+	}
+
+	/**
+	 * Requires the given Movements to start at the same time.
+	 * @param movement
+	 * @param other
+	 * @return this TimingConstraints.
+	 */
+	public TimingConstraints startsWith(Movement movement, Movement other) {
+		constraints.add(new Constraint(other, false, movement, false, 0));
+		constraints.add(new Constraint(movement, false, other, false, 0));
+		return this;
+	}
+
+	/**
+	 * Requires the given Movements to end at the same time, stretching the shorter one.
+	 * @param movement
+	 * @param other
+	 * @return this TimingConstraints.
+	 */
+	public TimingConstraints endsWith(Movement movement, Movement other) {
+		constraints.add(new Constraint(other, true, movement, true, 0));
+		constraints.add(new Constraint(movement, true, other, true, 0));
+		return this;
+	}
+
+	/**
+	 * Finds the earliest TimeSpan of every Movement in the given Plans and applies it. Each Movement lasts at least its
+	 * minimum duration, Movements within a Plan keep their order and at least the gaps already between them, and every synchronization point holds.
+	 * <p>
+	 * Movements joined at a nonzero junction speed stay joined, since the robot cannot hold still while moving. If a
+	 * synchronization point would stretch a Movement or open a gap at one of its junctions, those junctions are brought
+	 * to rest, the junction speeds of its Plan are profiled again, and the constraints are solved again.
+	 * @param plans
+	 * @return the time at which the last Movement ends.
+	 */
+	public double solve(Plan<?>... plans) {
+		// index the start and end event of every Movement, after the origin at index 0
+		IdentityHashMap<Movement, Integer> indices = new IdentityHashMap<>();
+		ArrayList<Movement> movements = new ArrayList<>();
+		for (Plan<?> plan : plans) {
+			for (Movement movement : plan.getMovements()) {
+				indices.put(movement, 1 + 2*movements.size());
+				movements.add(movement);
+			}
+		}
+		for (Constraint constraint : constraints) {
+			if (indices.get(constraint.from) == null || indices.get(constraint.to) == null) {
+				throw new RuntimeException(String.format("Constraint between %s and %s refers to a Movement outside of the given Plans",
+						constraint.from.getDisplayName(), constraint.to.getDisplayName()));
+			}
+		}
+
+		// the gap before and whether there is a nonzero junction speed at each junction of each Plan, before anything moves
+		double[][] gaps = new double[plans.length][];
+		boolean[][] linked = new boolean[plans.length][];
+		for (int p = 0; p < plans.length; p++) {
+			List<Movement> sequence = plans[p].getMovements();
+			gaps[p] = new double[Math.max(0, sequence.size()-1)];
+			linked[p] = new boolean[gaps[p].length];
+			for (int i = 0; i < gaps[p].length; i++) {
+				Movement previous = sequence.get(i), next = sequence.get(i+1);
+				gaps[p][i] = Math.max(0, next.getStartTime() - previous.getEndTime());
+				linked[p][i] = previous.getEndSpeed() > 0 || next.getStartSpeed() > 0;
+			}
+		}
+
+		double[] times;
+		while (true) {
+			times = getLongestPaths(1 + 2*movements.size(), getEdges(plans, indices, movements, gaps, linked));
+
+			// bring every junction of a stretched Movement to rest, then profile the remaining junctions of its Plan again
+			boolean unlinked = false;
+			for (int p = 0; p < plans.length; p++) {
+				List<Movement> sequence = plans[p].getMovements();
+				boolean changed = false;
+				for (int i = 0; i < sequence.size(); i++) {
+					Movement movement = sequence.get(i);
+					int start = indices.get(movement);
+					if (times[start+1] - times[start] <= movement.getMinDuration() + 1e-6) continue;
+					if (i > 0 && linked[p][i-1]) {
+						linked[p][i-1] = false;
+						changed = true;
+					}
+					if (i < linked[p].length && linked[p][i]) {
+						linked[p][i] = false;
+						changed = true;
+					}
+				}
+				if (changed) {
+					JunctionProfiler.profile(sequence.toArray(new Movement[0]), linked[p]);
+					unlinked = true;
+				}
+			}
+			if (!unlinked) break;
+		}
+
+		// apply the TimeSpans, which stretches every calculator to fit
+		double endTime = 0;
+		for (Movement movement : movements) {
+			int start = indices.get(movement);
+			movement.setTimeSpan(new TimeSpan(times[start], times[start+1]));
+			endTime = Math.max(endTime, times[start+1]);
+		}
+		for (Plan<?> plan : plans) {
+			plan.updateTimeSpans();
+		}
+		return endTime;
+	}
+
+	/**
+	 * Builds the constraint graph of the given Plans, where a linked junction fixes the next Movement to start exactly
+	 * when the previous one ends and any other junction keeps at least its gap.
+	 * @param plans
+	 * @param indices
+	 * @param movements
+	 * @param gaps the original gap before each junction of each Plan.
+	 * @param linked whether each junction of each Plan has a nonzero junction speed.
+	 * @return the edges from -> to with weight lag, meaning time(to) >= time(from) + lag.
+	 */
+	private ArrayList<Edge> getEdges(Plan<?>[] plans, IdentityHashMap<Movement, Integer> indices, List<Movement> movements,
+									 double[][] gaps, boolean[][] linked) {
+		ArrayList<Edge> edges = new ArrayList<>();
+		for (Movement movement : movements) {
+			int start = indices.get(movement);
+			edges.add(new Edge(0, start, 0));
+			edges.add(new Edge(start, start+1, movement.getMinDuration()));
+		}
+		for (int p = 0; p < plans.length; p++) {
+			List<Movement> sequence = plans[p].getMovements();
+			for (int i = 0; i+1 < sequence.size(); i++) {
+				int previousEnd = indices.get(sequence.get(i)) + 1, nextStart = indices.get(sequence.get(i+1));
+				if (linked[p][i]) {
+					edges.add(new Edge(previousEnd, nextStart, 0));
+					edges.add(new Edge(nextStart, previousEnd, 0));
+				} else {
+					edges.add(new Edge(previousEnd, nextStart, gaps[p][i]));
+				}
+			}
+		}
+		for (Constraint constraint : constraints) {
+			int from = indices.get(constraint.from), to = indices.get(constraint.to);
+			edges.add(new Edge(from + (constraint.fromEnd ? 1 : 0), to + (constraint.toEnd ? 1 : 0), constraint.lag));
+		}
+		return edges;
+	}
+
+	/**
+	 * Finds the longest path from node 0 to every node with Bellman-Ford.
+	 * @param nodes
+	 * @param edges
+	 * @return the longest path length to each node.
+	 */
+	private static double[] getLongestPaths(int nodes, ArrayList<Edge> edges) {
+		double[] times = new double[nodes];
+		Arrays.fill(times, Double.NEGATIVE_INFINITY);
+		times[0] = 0;
+
+		for (int iteration = 0; iteration < nodes; iteration++) {
+			boolean changed = false;
+			for (Edge edge : edges) {
+				double candidate = times[edge.from] + edge.weight;
+				if (times[edge.from] != Double.NEGATIVE_INFINITY && candidate > times[edge.to] + 1e-12) {
+					times[edge.to] = candidate;
+					changed = true;
+				}
+			}
+			if (!changed) return times;
+		}
+
+		// still relaxing after every simple path was considered
+		throw new RuntimeException("Timing constraints contain a cycle that can never be satisfied");
+	}
+
+}
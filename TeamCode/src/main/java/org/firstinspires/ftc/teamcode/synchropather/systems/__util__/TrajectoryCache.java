@@ -0,0 +1,271 @@
+package org.firstinspires.ftc.teamcode.synchropather.systems.__util__;
+
+import org.firstinspires.ftc.teamcode.synchropather.DriveConstants;
+import org.firstinspires.ftc.teamcode.synchropather.systems.MovementType;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.superclasses.Plan;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Object that stores BakedTrajectories in compact binary files, keyed by a hash of the inputs that produced them, so that
+ * a hit needs no Movements to be built. The key of a path covers its name, the content hash of its Movements stored in
+ * the table generated at build time, the voltage scale, the time step, and DriveConstants. Any change to anchors, timing,
+ * or constants produces a different key once the app is rebuilt, so stale entries are never read back.
+ */
+public class TrajectoryCache {
+
+	/**
+	 * The default cache directory on the robot controller's storage.
+	 */
+	public static final File DEFAULT_DIRECTORY = new File("/sdcard/FIRST/synchropather");
+
+	private static final int MAGIC = 0x53505443; // "SPTC"
+	private static final int VERSION = 1;
+	/**
+	 * The size of the header that precedes the samples in every file.
+	 */
+	public static final int HEADER_BYTES = 4 + 4 + 8 + 4 + 4 + 8 + 4;
+
+	private final File directory;
+
+	/**
+	 * Creates a new TrajectoryCache in the default directory.
+	 */
+	public TrajectoryCache() {
+		this(DEFAULT_DIRECTORY);
+	}
+
+	/**
+	 * Creates a new TrajectoryCache in the given directory.
+	 * @param directory
+	 */
+	public TrajectoryCache(File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * @return the directory containing the cache files.
+	 */
+	public File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Bakes the given Plan and stores the result under the given key. The Plan serves lookups from the result.
+	 * @param key
+	 * @param plan
+	 * @param timeStep seconds between samples, > 0.
+	 * @return the newly baked trajectory.
+	 */
+	public BakedTrajectory bake(long key, Plan<?> plan, double timeStep) {
+		BakedTrajectory trajectory = plan.bake(timeStep);
+		store(key, trajectory);
+		return trajectory;
+	}
+
+	/**
+	 * Computes the cache key of a path's trajectory of one MovementType from its inputs, at the current voltage scale.
+	 * @param name the name of the path.
+	 * @param movementType
+	 * @param sourceKey the content hash of the path's Movements, such as the key of its table generated at build time.
+	 * @param timeStep
+	 * @return the content hash of the path, voltage scale, time step, and DriveConstants.
+	 */
+	public static long getKey(String name, MovementType movementType, long sourceKey, double timeStep) {
+		ContentHash hash = new ContentHash();
+		hash.add((long) VERSION);
+		hash.add(timeStep);
+		hashConstants(hash);
+		hash.add(VoltageScaling.getScale());
+		hash.add(name);
+		hash.add((long) movementType.ordinal());
+		hash.add(sourceKey);
+		return hash.get();
+	}
+
+	/**
+	 * Computes the content hash of the given Plan's Movements sampled at the given time step, which TrajectoryGenerator
+	 * stores in the tables it generates.
+	 * @param plan
+	 * @param timeStep
+	 * @return the content hash of the Plan, time step, and DriveConstants.
+	 */
+	public static long getKey(Plan<?> plan, double timeStep) {
+		ContentHash hash = new ContentHash();
+		hash.add((long) VERSION);
+		hash.add(timeStep);
+		hashConstants(hash);
+		plan.hashContent(hash);
+		return hash.get();
+	}
+
+	/**
+	 * Reads the trajectory stored under the given key.
+	 * @param key
+	 * @param movementType
+	 * @param timeStep
+	 * @return the stored trajectory, or null if it is missing, corrupt, or does not match.
+	 */
+	public BakedTrajectory load(long key, MovementType movementType, double timeStep) {
+		File file = getFile(key);
+		if (!file.isFile()) return null;
+
+		try (RandomAccessFile input = new RandomAccessFile(file, "r");
+			 FileChannel channel = input.getChannel()) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			return read(buffer, key, movementType, timeStep);
+		} catch (IOException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the given trajectory under the given key, replacing the file atomically.
+	 * @param key
+	 * @param trajectory
+	 * @return true if the file was written.
+	 */
+	public boolean store(long key, BakedTrajectory trajectory) {
+		if (!directory.isDirectory() && !directory.mkdirs()) return false;
+
+		File file = getFile(key);
+		File temp = new File(directory, file.getName() + ".tmp");
+		try (RandomAccessFile output = new RandomAccessFile(temp, "rw");
+			 FileChannel channel = output.getChannel()) {
+			ByteBuffer buffer = write(key, trajectory);
+			output.setLength(0);
+			while (buffer.hasRemaining()) channel.write(buffer);
+			channel.force(false);
+		} catch (IOException e) {
+			temp.delete();
+			return false;
+		}
+		return temp.renameTo(file);
+	}
+
+	/**
+	 * Deletes every cache file in the cache directory.
+	 */
+	public void clear() {
+		File[] files = directory.listFiles((dir, name) -> name.endsWith(".bin") || name.endsWith(".tmp"));
+		if (files == null) return;
+		for (File file : files) file.delete();
+	}
+
+	/**
+	 * @param key
+	 * @return the cache file for the given key.
+	 */
+	private File getFile(long key) {
+		return new File(directory, String.format("%016x.bin", key));
+	}
+
+	/**
+	 * Serializes the given trajectory.
+	 * @param key
+	 * @param trajectory
+	 * @return a buffer ready to be written.
+	 */
+	public static ByteBuffer write(long key, BakedTrajectory trajectory) {
+		int values = trajectory.getPositions().length;
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + 3 * 8 * values).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(MAGIC);
+		buffer.putInt(VERSION);
+		buffer.putLong(key);
+		buffer.putInt(trajectory.movementType.ordinal());
+		buffer.putInt(trajectory.movementType.dimension);
+		buffer.putDouble(trajectory.getTimeStep());
+		buffer.putInt(trajectory.getSampleCount());
+		buffer.asDoubleBuffer().put(trajectory.getPositions()).put(trajectory.getVelocities()).put(trajectory.getAccelerations());
+		buffer.position(buffer.capacity());
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * Deserializes a trajectory, checking its header against what the caller expects.
+	 * @param buffer little-endian buffer positioned at the header.
+	 * @param key
+	 * @param movementType
+	 * @param timeStep
+	 * @return the trajectory, or null if the header does not match.
+	 */
+	static BakedTrajectory read(ByteBuffer buffer, long key, MovementType movementType, double timeStep) {
+		if (buffer.remaining() < HEADER_BYTES) return null;
+		if (buffer.getLong(buffer.position() + 8) != key) return null;
+		if (buffer.getDouble(buffer.position() + 24) != timeStep) return null;
+		return read(buffer, movementType);
+	}
+
+	/**
+	 * Reads the key from a header without reading the samples.
+	 * @param buffer little-endian buffer positioned at the header.
+	 * @param movementType
+	 * @return the key, or 0 if the header is invalid or of a different MovementType.
+	 */
+	public static long readKey(ByteBuffer buffer, MovementType movementType) {
+		if (buffer.remaining() < HEADER_BYTES) return 0;
+		int start = buffer.position();
+		if (buffer.getInt(start) != MAGIC || buffer.getInt(start + 4) != VERSION) return 0;
+		if (buffer.getInt(start + 16) != movementType.ordinal() || buffer.getInt(start + 20) != movementType.dimension) return 0;
+		return buffer.getLong(start + 8);
+	}
+
+	/**
+	 * Deserializes a trajectory without checking its key, for tables whose source Movements are not available, such as ones generated at build time.
+	 * @param buffer little-endian buffer positioned at the header.
+	 * @param movementType
+	 * @return the trajectory, or null if the header is invalid or of a different MovementType.
+	 */
+	public static BakedTrajectory read(ByteBuffer buffer, MovementType movementType) {
+		if (buffer.remaining() < HEADER_BYTES) return null;
+		if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) return null;
+		buffer.getLong();
+		if (buffer.getInt() != movementType.ordinal() || buffer.getInt() != movementType.dimension) return null;
+
+		double timeStep = buffer.getDouble();
+		int sampleCount = buffer.getInt();
+		if (!(timeStep > 0)) return null;
+		int values = sampleCount * movementType.dimension;
+		if (sampleCount <= 0 || buffer.remaining() != 3 * 8 * (long) values) return null;
+
+		double[] positions = new double[values];
+		double[] velocities = new double[values];
+		double[] accelerations = new double[values];
+		buffer.asDoubleBuffer().get(positions).get(velocities).get(accelerations);
+
+		return new BakedTrajectory(movementType, timeStep, positions, velocities, accelerations);
+	}
+
+	/**
+	 * Adds every numeric and boolean constant of DriveConstants to the given hash, in name order.
+	 * @param hash
+	 */
+	private static void hashConstants(ContentHash hash) {
+		Field[] fields = DriveConstants.class.getDeclaredFields();
+		Arrays.sort(fields, Comparator.comparing(Field::getName));
+		for (Field field : fields) {
+			if (!Modifier.isStatic(field.getModifiers())) continue;
+			try {
+				Class<?> type = field.getType();
+				if (type == double.class) hash.add(field.getName()).add(field.getDouble(null));
+				else if (type == int.class) hash.add(field.getName()).add((long) field.getInt(null));
+				else if (type == boolean.class) hash.add(field.getName()).add(field.getBoolean(null) ? 1L : 0L);
+			} catch (IllegalAccessException e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
+}
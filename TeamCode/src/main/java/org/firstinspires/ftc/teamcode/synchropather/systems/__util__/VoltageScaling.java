@@ -0,0 +1,55 @@
+package org.firstinspires.ftc.teamcode.synchropather.systems.__util__;
+
+import org.firstinspires.ftc.teamcode.synchropather.DriveConstants;
+
+/**
+ * A static class that holds the factor by which the default kinematic limits and the max wheel velocity are scaled for the
+ * current battery voltage. Set the voltage before building Plans so that they are achievable on the current battery.
+ */
+public final class VoltageScaling {
+
+	private static volatile double scale = 1;
+
+	private VoltageScaling() {}
+
+	/**
+	 * Sets the scale from the given battery voltage relative to DriveConstants.NOMINAL_BATTERY_VOLTAGE, clipped between
+	 * DriveConstants.MIN_VOLTAGE_SCALE and DriveConstants.MAX_VOLTAGE_SCALE and rounded down to DriveConstants.VOLTAGE_SCALE_STEP.
+	 * Readings that are not positive, such as from a hub without a battery, leave the scale at 1.
+	 * @param voltage volts
+	 * @return the new scale.
+	 */
+	public static double setVoltage(double voltage) {
+		if (!(voltage > 0)) {
+			scale = 1;
+			return scale;
+		}
+		double ratio = Math.max(DriveConstants.MIN_VOLTAGE_SCALE, Math.min(DriveConstants.MAX_VOLTAGE_SCALE, voltage / DriveConstants.NOMINAL_BATTERY_VOLTAGE));
+		// small epsilon keeps exact multiples of the step from rounding down a whole step
+		double step = DriveConstants.VOLTAGE_SCALE_STEP;
+		scale = Math.max(DriveConstants.MIN_VOLTAGE_SCALE, Math.floor(ratio / step + 1e-9) * step);
+		return scale;
+	}
+
+	/**
+	 * Resets the scale to 1, which uses the DriveConstants limits as tuned.
+	 */
+	public static void reset() {
+		scale = 1;
+	}
+
+	/**
+	 * @return the factor by which the default kinematic limits and the max wheel velocity are scaled.
+	 */
+	public static double getScale() {
+		return scale;
+	}
+
+	/**
+	 * @return whether the limits are used as tuned, such that Plans match the ones generated at build time.
+	 */
+	public static boolean isNominal() {
+		return scale == 1;
+	}
+
+}
@@ -0,0 +1,332 @@
+package org.firstinspires.ftc.teamcode.synchropather.systems.__util__.calculators;
+
+import org.firstinspires.ftc.teamcode.synchropather.DriveConstants;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.TimeSpan;
+
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Object that calculates position based on elapsed time from a velocity curve that also respects a speed limit at evenly
+ * spaced displacements, such as one derived from the curvature of a path.
+ * <p>
+ * The curve is built with a forward pass limited by max acceleration and a backward pass limited by max deceleration.
+ * Acceleration is constant between neighboring samples, so each interval is one quadratic phase of the MotionProfile.
+ */
+public class CurvatureLimitedDisplacementCalculator extends StretchedDisplacementCalculator {
+
+	/**
+	 * The number of bisection steps used to solve for the speed cap of a stretched curve.
+	 */
+	private static final int SOLVER_ITERATIONS = 50;
+
+	/**
+	 * The fewest intervals a curve is sampled with, so that a rest-to-rest curve has a sample in between to reach speed at.
+	 */
+	private static final int MIN_INTERVALS = 2;
+
+	private final double[] speedLimits;
+	private final double step;
+
+	/**
+	 * The unsigned velocity at each sample, the elapsed time at which each sample is reached, and the constant
+	 * acceleration from each sample to the next.
+	 */
+	private final double[] velocities, times, accelerations;
+
+	/**
+	 * Creates a new CurvatureLimitedDisplacementCalculator with a given target, timeSpan, symmetric kinematic constraints, and speed limits.
+	 * @param targetDisplacement
+	 * @param timeSpan
+	 * @param MV
+	 * @param MA
+	 * @param speedLimits unsigned speed limit at each of n+1 evenly spaced displacements from 0 to the target, n >= 1.
+	 */
+	public CurvatureLimitedDisplacementCalculator(double targetDisplacement, TimeSpan timeSpan, double MV, double MA, double[] speedLimits) {
+		this(targetDisplacement, timeSpan, MV, MA, MA, speedLimits);
+	}
+
+	/**
+	 * Creates a new CurvatureLimitedDisplacementCalculator with a given target, timeSpan, kinematic constraints, and speed limits.
+	 * @param targetDisplacement
+	 * @param timeSpan
+	 * @param MV
+	 * @param MA
+	 * @param MD max deceleration, as a positive value.
+	 * @param speedLimits unsigned speed limit at each of n+1 evenly spaced displacements from 0 to the target, n >= 1.
+	 */
+	public CurvatureLimitedDisplacementCalculator(double targetDisplacement, TimeSpan timeSpan, double MV, double MA, double MD, double[] speedLimits) {
+		super(targetDisplacement, MV, MA, MD);
+		if (speedLimits.length < 2) {
+			throw new RuntimeException(String.format("Expected at least 2 speed limits but got %s", speedLimits.length));
+		}
+		this.speedLimits = speedLimits;
+		this.step = distance / (speedLimits.length - 1);
+		this.velocities = new double[speedLimits.length];
+		this.times = new double[speedLimits.length];
+		this.accelerations = new double[speedLimits.length - 1];
+		this.timeSpan = timeSpan;
+		init();
+	}
+
+	/**
+	 * Sets a new duration and finds the speed cap accordingly.
+	 */
+	@Override
+	public void setTimeSpan(TimeSpan newTimeSpan) {
+		timeSpan = newTimeSpan;
+
+		/// catch error for when time < min_time
+		if (getDuration() - minDuration < -1e-3) {
+			throw new RuntimeException(
+					String.format("TimeSpan duration %s is less than the minimum needed time %s.",
+							getDuration(),
+							minDuration
+					)
+			);
+		}
+
+		// floating point error correction
+		if (getDuration() <= minDuration + 1e-9) {
+			timeSpan = new TimeSpan(getStartTime(), getStartTime() + minDuration);
+			buildCurve(MV);
+			updateProfile();
+			return;
+		}
+
+		/// calculate speed cap
+		// the curve takes longer as the cap decreases, until it can no longer reach the boundary velocities
+		double lower = 0, upper = MV;
+		for (int i = 0; i < SOLVER_ITERATIONS; i++) {
+			double cap = 0.5*(lower + upper);
+			if (!buildCurve(cap) || times[times.length-1] > getDuration()) {
+				lower = cap;
+			} else {
+				upper = cap;
+			}
+		}
+		if (!buildCurve(upper) || times[times.length-1] < getDuration() - 1e-3) {
+			throw new RuntimeException(
+					String.format("TimeSpan duration %s is more than the maximum time %s possible with boundary velocities %s and %s.",
+							getDuration(),
+							times[times.length-1],
+							startVelocity,
+							endVelocity
+					)
+			);
+		}
+		updateProfile();
+	}
+
+	/**
+	 * Sets the velocities at the start and end of the curve and fits it to the new minimum duration from the same start time.
+	 * @param startVelocity unsigned velocity at the start time.
+	 * @param endVelocity unsigned velocity at the end time.
+	 */
+	@Override
+	public void setBoundaryVelocities(double startVelocity, double endVelocity) {
+		if (startVelocity < 0 || endVelocity < 0
+				|| startVelocity > getMaxStartVelocity(0) + 1e-6 || endVelocity > getMaxEndVelocity(0) + 1e-6) {
+			throw new RuntimeException(String.format("Boundary velocities %s and %s exceed the speed limits of this curve", startVelocity, endVelocity));
+		}
+		this.startVelocity = Math.min(startVelocity, speedLimits[0]);
+		this.endVelocity = Math.min(endVelocity, speedLimits[speedLimits.length-1]);
+		if (!buildCurve(MV)) {
+			throw new RuntimeException(String.format("Cannot change velocity from %s to %s within displacement %s", startVelocity, endVelocity, distance));
+		}
+		minDuration = times[times.length-1];
+		setTimeSpan(new TimeSpan(getStartTime(), getStartTime() + minDuration));
+	}
+
+	/**
+	 * @param startVelocity unsigned velocity at the start time.
+	 * @return the highest unsigned velocity reachable at the end time when starting at startVelocity.
+	 */
+	@Override
+	public double getMaxEndVelocity(double startVelocity) {
+		double v = Math.min(startVelocity, Math.min(MV, speedLimits[0]));
+		for (int i = 1; i < speedLimits.length; i++) {
+			v = Math.min(Math.min(MV, speedLimits[i]), Math.sqrt(v*v + 2*MA*step));
+		}
+		return v;
+	}
+
+	/**
+	 * @param endVelocity unsigned velocity at the end time.
+	 * @return the highest unsigned velocity at the start time that can still slow down to endVelocity.
+	 */
+	@Override
+	public double getMaxStartVelocity(double endVelocity) {
+		double v = Math.min(endVelocity, Math.min(MV, speedLimits[speedLimits.length-1]));
+		for (int i = speedLimits.length-2; i >= 0; i--) {
+			v = Math.min(Math.min(MV, speedLimits[i]), Math.sqrt(v*v + 2*MD*step));
+		}
+		return v;
+	}
+
+	/**
+	 * Calculates min time and the fastest curve.
+	 */
+	@Override
+	public void init() {
+		if (!buildCurve(MV)) {
+			throw new RuntimeException(String.format("Cannot change velocity from %s to %s within displacement %s", startVelocity, endVelocity, distance));
+		}
+		minDuration = times[times.length-1];
+		setTimeSpan(timeSpan);
+	}
+
+	/**
+	 * Calculates the minimum time needed to travel the given distance from rest to rest under the given symmetric constraints and speed limits.
+	 * @param distance
+	 * @param MV
+	 * @param MA
+	 * @param speedLimits unsigned speed limit at each of n+1 evenly spaced displacements from 0 to distance, n >= 1.
+	 * @return the minimum duration.
+	 */
+	public static double findMinDuration(double distance, double MV, double MA, double[] speedLimits) {
+		return findMinDuration(distance, MV, MA, MA, speedLimits);
+	}
+
+	/**
+	 * Calculates the minimum time needed to travel the given distance from rest to rest under the given constraints and speed limits.
+	 * @param distance
+	 * @param MV
+	 * @param MA
+	 * @param MD
+	 * @param speedLimits unsigned speed limit at each of n+1 evenly spaced displacements from 0 to distance, n >= 1.
+	 * @return the minimum duration.
+	 */
+	public static double findMinDuration(double distance, double MV, double MA, double MD, double[] speedLimits) {
+		int n = speedLimits.length;
+		double[] velocities = new double[n], times = new double[n], accelerations = new double[n-1];
+		buildCurve(distance / (n-1), speedLimits, MV, MA, MD, 0, 0, MV, velocities, times, accelerations);
+		return times[n-1];
+	}
+
+	/**
+	 * Samples the given speed limit at evenly spaced displacements about DriveConstants.CURVATURE_PROFILE_STEP apart,
+	 * with at least MIN_INTERVALS intervals so that even very short curves can be profiled.
+	 * @param distance
+	 * @param speedLimitAt unsigned speed limit at a displacement from 0 to distance.
+	 * @return the unsigned speed limit at each of n+1 displacements from 0 to distance.
+	 */
+	public static double[] sampleSpeedLimits(double distance, DoubleUnaryOperator speedLimitAt) {
+		int n = Math.max(MIN_INTERVALS, (int) Math.ceil(distance / DriveConstants.CURVATURE_PROFILE_STEP));
+		double[] speedLimits = new double[n+1];
+		for (int k = 0; k <= n; k++) {
+			speedLimits[k] = speedLimitAt.applyAsDouble(distance * k / n);
+		}
+		return speedLimits;
+	}
+
+	/**
+	 * Builds the curve of this calculator under the given speed cap.
+	 * @param cap speed limit applied to every sample between the boundaries.
+	 * @return false if the boundary velocities cannot be kept under the given cap.
+	 */
+	private boolean buildCurve(double cap) {
+		return buildCurve(step, speedLimits, MV, MA, MD, startVelocity, endVelocity, cap, velocities, times, accelerations);
+	}
+
+	/**
+	 * Builds the velocity at every sample with forward and backward passes, then integrates the elapsed time of each sample.
+	 * @param step displacement between samples.
+	 * @param speedLimits
+	 * @param MV
+	 * @param MA
+	 * @param MD
+	 * @param startVelocity
+	 * @param endVelocity
+	 * @param cap speed limit applied to every sample between the boundaries.
+	 * @param velocities output unsigned velocity at each sample.
+	 * @param times output elapsed time at each sample.
+	 * @param accelerations output constant acceleration from each sample to the next.
+	 * @return false if the boundary velocities cannot be kept under the given cap.
+	 */
+	private static boolean buildCurve(double step, double[] speedLimits, double MV, double MA, double MD, double startVelocity, double endVelocity,
+									  double cap, double[] velocities, double[] times, double[] accelerations) {
+		int last = velocities.length - 1;
+		velocities[0] = startVelocity;
+		velocities[last] = endVelocity;
+		for (int i = 1; i < last; i++) {
+			velocities[i] = Math.min(cap, Math.min(MV, speedLimits[i]));
+		}
+
+		// forward pass: limit by acceleration
+		for (int i = 0; i < last; i++) {
+			velocities[i+1] = Math.min(velocities[i+1], Math.sqrt(velocities[i]*velocities[i] + 2*MA*step));
+		}
+		// backward pass: limit by deceleration
+		for (int i = last; i > 0; i--) {
+			velocities[i-1] = Math.min(velocities[i-1], Math.sqrt(velocities[i]*velocities[i] + 2*MD*step));
+		}
+		if (velocities[0] < startVelocity - 1e-9 || velocities[last] < endVelocity - 1e-9) {
+			return false;
+		}
+
+		// constant acceleration between samples, since v^2 changes linearly with displacement
+		times[0] = 0;
+		for (int i = 0; i < last; i++) {
+			double v0 = velocities[i], v1 = velocities[i+1];
+			if (step == 0) {
+				times[i+1] = times[i];
+				accelerations[i] = 0;
+				continue;
+			}
+			if (v0 + v1 == 0) {
+				// rest to rest within one interval, which accelerates at MA and decelerates at MD
+				double peak = Math.sqrt(2*step*MA*MD / (MA + MD));
+				times[i+1] = times[i] + peak/MA + peak/MD;
+				accelerations[i] = MA;
+				continue;
+			}
+			double dt = 2*step / (v0 + v1);
+			times[i+1] = times[i] + dt;
+			accelerations[i] = (v1 - v0) / dt;
+		}
+		return true;
+	}
+
+	/**
+	 * Builds the signed MotionProfile of this calculator from its current curve, with one phase per interval between samples,
+	 * or two for an interval that starts and ends at rest.
+	 */
+	private void updateProfile() {
+		int n = accelerations.length;
+		int phases = n;
+		for (int i = 0; i < n; i++) {
+			if (isRestToRest(i)) phases++;
+		}
+
+		double[] boundaries = new double[phases+1];
+		double[] coefficients = new double[4*phases];
+		int phase = 0;
+		for (int i = 0; i < n; i++) {
+			boundaries[phase] = getStartTime() + times[i];
+			coefficients[4*phase] = sign * i*step;
+			coefficients[4*phase+1] = sign * velocities[i];
+			coefficients[4*phase+2] = sign * 0.5*accelerations[i];
+			phase++;
+			if (isRestToRest(i)) {
+				// decelerate at MD from the peak reached partway through the interval
+				double peak = Math.sqrt(2*step*MA*MD / (MA + MD));
+				boundaries[phase] = getStartTime() + times[i] + peak/MA;
+				coefficients[4*phase] = sign * (i*step + 0.5*peak*peak/MA);
+				coefficients[4*phase+1] = sign * peak;
+				coefficients[4*phase+2] = sign * -0.5*MD;
+				phase++;
+			}
+		}
+		boundaries[phases] = getStartTime() + times[n];
+		profile = new MotionProfile(boundaries, coefficients);
+	}
+
+	/**
+	 * @param i
+	 * @return whether the interval after sample i starts and ends at rest, so it cannot be one constant acceleration phase.
+	 */
+	private boolean isRestToRest(int i) {
+		return step > 0 && velocities[i] + velocities[i+1] == 0;
+	}
+
+}
@@ -1,24 +1,45 @@
 package org.firstinspires.ftc.teamcode.synchropather.systems.__util__.calculators;
 
 /**
- * Object that calculates position based on elapsed time from a velocity curve defined by displacement, max velocity, and max acceleration.
+ * Object that calculates position based on elapsed time from a velocity curve defined by displacement, max velocity, max acceleration,
+ * and max deceleration.
  */
 public class DisplacementCalculator {
 
 	protected double distance, duration, sign;
-	protected double MV, MA;
+	protected double MV, MA, MD;
+
+	/**
+	 * The signed curve that displacement, velocity, and acceleration are evaluated from.
+	 */
+	protected MotionProfile profile;
 	
 	/**
-	 * Creates a new DisplacementCalculator with a given target and kinematic constraints.
+	 * Creates a new DisplacementCalculator with a given target and symmetric kinematic constraints.
 	 * @param targetDisplacement
 	 * @param MV
 	 * @param MA
 	 */
 	public DisplacementCalculator(double targetDisplacement, double MV, double MA) {
+		this(targetDisplacement, MV, MA, MA);
+	}
+
+	/**
+	 * Creates a new DisplacementCalculator with a given target and kinematic constraints.
+	 * @param targetDisplacement
+	 * @param MV
+	 * @param MA
+	 * @param MD max deceleration, as a positive value.
+	 */
+	public DisplacementCalculator(double targetDisplacement, double MV, double MA, double MD) {
+		if (!(MA > 0) || !(MD > 0)) {
+			throw new RuntimeException(String.format("Max acceleration %s and max deceleration %s must be positive", MA, MD));
+		}
 		this.sign = Math.signum(targetDisplacement);
 		this.distance = Math.abs(targetDisplacement);
 		this.MV = MV;
 		this.MA = MA;
+		this.MD = MD;
 		init();
 	}
 	
@@ -52,31 +73,17 @@ public class DisplacementCalculator {
 		displacement = bound(displacement * sign, 0, distance); // positive in [0, distance]
 		
 		double elapsedTime;
-		double d_n = distance - displacement, d_a = 0.5 * MV*MV/MA, t_a = MV/MA;
-		if (duration <= 2*t_a) {
-			// triangle graph
-			if (displacement <= distance/2)
-				elapsedTime = Math.sqrt(2*displacement/MA);
-			else
-				elapsedTime = duration - Math.sqrt(2*d_n/MA);
-		} 
-		else {
-			// trapezoid graph
-			if (displacement <= distance/2)
-				if (displacement <= d_a)
-					// in first slope
-					elapsedTime = Math.sqrt(2*displacement/MA);
-				else
-					// in first plateau
-					elapsedTime = displacement/MV + t_a/2d;
-			else
-				if (d_n <= d_a)
-					// in last slope
-					elapsedTime = duration - Math.sqrt(2*d_n/MA);
-				else
-					// in second plateau
-					elapsedTime = duration - (d_n/MV + t_a/2d);
-		}
+		double v = findRestPeakVelocity();
+		double d_n = distance - displacement, d_a = 0.5*v*v/MA, d_d = 0.5*v*v/MD;
+		if (displacement <= d_a)
+			// in first slope
+			elapsedTime = Math.sqrt(2*displacement/MA);
+		else if (d_n <= d_d)
+			// in last slope
+			elapsedTime = duration - Math.sqrt(2*d_n/MD);
+		else
+			// in plateau
+			elapsedTime = v/MA + (displacement - d_a)/v;
 		
 		return elapsedTime;
 	}
@@ -87,27 +94,7 @@ public class DisplacementCalculator {
 	 * @return the displacement value the given elapsed time.
 	 */
 	public double getDisplacement(double elapsedTime) {
-		elapsedTime = bound(elapsedTime, 0, duration);
-		
-		double displacement;
-		double t_n = duration - elapsedTime, t_a = MV/MA;
-		if (duration <= 2*t_a) {
-			// triangle graph
-			if (elapsedTime <= duration/2)
-				displacement = 0.5*MA*elapsedTime*elapsedTime;
-			else
-				displacement = distance - 0.5*MA*t_n*t_n;
-		} else {
-			// trapezoid graph
-			if (elapsedTime <= duration/2)
-				displacement = 0.5*(elapsedTime + Math.max(0, elapsedTime - t_a))* Math.min(MV, MA*elapsedTime);
-			else
-				displacement = distance - 0.5*(t_n + Math.max(0, t_n - t_a))* Math.min(MV, MA*t_n);
-		}
-		
-		displacement *= sign;
-		
-		return displacement;
+		return profile.getPosition(elapsedTime);
 	}
 
 	/**
@@ -116,43 +103,77 @@ public class DisplacementCalculator {
 	 * @return the velocity value the given elapsed time.
 	 */
 	public double getVelocity(double elapsedTime) {
-		elapsedTime = bound(elapsedTime, 0, duration);
-		
-		double velocity;
-		double t_n = duration - elapsedTime, t_a = MV/MA;
-		if (duration <= 2*t_a) {
-			// triangle graph
-			if (elapsedTime <= duration/2)
-				velocity = MA*elapsedTime;
-			else
-				velocity = MA*t_n;
-		} else {
-			// trapezoid graph
-			if (elapsedTime <= duration/2)
-				velocity = Math.min(MV, MA*elapsedTime);
-			else
-				velocity = Math.min(MV, MA*t_n);
-		}
-		
-		velocity *= sign;
-		
-		return velocity;
+		return profile.getVelocity(elapsedTime);
 	}
 	
+	/**
+	 * Calculates the acceleration at a certain elapsed time.
+	 * @param elapsedTime 
+	 * @return the acceleration value the given elapsed time.
+	 */
+	public double getAcceleration(double elapsedTime) {
+		return profile.getAcceleration(elapsedTime);
+	}
+
+	/**
+	 * Calculates the displacement at each of the given elapsed times in one pass.
+	 * @param elapsedTimes preferably sorted.
+	 * @param out buffer of at least elapsedTimes.length displacement values.
+	 */
+	public void evaluate(double[] elapsedTimes, double[] out) {
+		profile.evaluate(elapsedTimes, out);
+	}
+
+	/**
+	 * Calculates the displacement, velocity, and acceleration at each of the given elapsed times in one pass.
+	 * @param elapsedTimes preferably sorted.
+	 * @param displacements buffer of at least elapsedTimes.length values, or null to skip.
+	 * @param velocities buffer of at least elapsedTimes.length values, or null to skip.
+	 * @param accelerations buffer of at least elapsedTimes.length values, or null to skip.
+	 */
+	public void evaluate(double[] elapsedTimes, double[] displacements, double[] velocities, double[] accelerations) {
+		profile.evaluate(elapsedTimes, displacements, velocities, accelerations);
+	}
+
+	/**
+	 * @return the signed piecewise polynomial curve this calculator evaluates.
+	 */
+	public MotionProfile getProfile() {
+		return profile;
+	}
+
 	/**
 	 * Calculates total time.
 	 */
 	private void init() {
-		
-		double d_a = 0.5 * MV*MV / MA;
-		
-		if (distance / 2 <= d_a) {
-			// triangle graph
-			duration = 2*Math.sqrt(distance/MA);
+		double v = findRestPeakVelocity();
+		if (v == 0) {
+			duration = 0;
 		} else {
-			// trapezoid graph
-			duration = distance/MV + MV/MA;
+			// ramps plus the remaining distance at cruise velocity, which is zero for a triangle graph
+			double rampDistance = 0.5*v*v*(1/MA + 1/MD);
+			duration = v/MA + v/MD + Math.max(0, distance - rampDistance)/v;
 		}
+		buildProfile();
+	}
+
+	/**
+	 * @return the highest velocity a rest to rest curve can reach within the distance, capped at MV.
+	 */
+	protected double findRestPeakVelocity() {
+		return Math.min(MV, Math.sqrt(2*distance*MA*MD/(MA + MD)));
+	}
+
+	/**
+	 * Builds the acceleration, cruise, and deceleration phases of a rest to rest curve from MV, MA, MD, and duration.
+	 */
+	protected void buildProfile() {
+		double v = findRestPeakVelocity();
+		double t_a = v/MA, t_d = v/MD;
+		profile = MotionProfile.fromAccelerations(0, 0, 0,
+				new double[]{t_a, Math.max(0, duration - t_a - t_d), t_d},
+				new double[]{MA, 0, -MD}
+		).scale(sign);
 	}
 	
 	/**
@@ -0,0 +1,239 @@
+package org.firstinspires.ftc.teamcode.synchropather.systems.__util__.calculators;
+
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.SearchCursor;
+
+/**
+ * A piecewise cubic curve of position over time with precomputed phase boundaries and coefficients.
+ * <p>
+ * Within phase k, position is c0 + c1*tau + c2*tau^2 + c3*tau^3 where tau is the time since the phase started.
+ * Position and velocity hold their boundary values outside of the curve, and acceleration and jerk are zero there.
+ * <p>
+ * The boundaries and coefficients never change, but every lookup advances a shared SearchCursor, so a MotionProfile
+ * must not be evaluated from two threads at once. Build or sample each Movement on a single thread at a time.
+ */
+public class MotionProfile {
+
+	/**
+	 * The absolute time at which each phase starts, plus the end time of the curve.
+	 */
+	private final double[] boundaries;
+
+	/**
+	 * Four power basis coefficients (c0,c1,c2,c3) per phase.
+	 */
+	private final double[] coefficients;
+
+	/**
+	 * Remembers the last phase found, which makes lookups at increasing times fast but this profile unsafe to share across threads.
+	 */
+	private final SearchCursor cursor;
+
+	/**
+	 * Creates a new MotionProfile from the given phase boundaries and coefficients.
+	 * @param boundaries nondecreasing absolute start time of each of n phases, plus the end time, n >= 1.
+	 * @param coefficients 4n power basis coefficients (c0,c1,c2,c3) per phase, in time since the phase started.
+	 */
+	public MotionProfile(double[] boundaries, double[] coefficients) {
+		if (boundaries.length < 2 || coefficients.length != 4*(boundaries.length-1)) {
+			throw new RuntimeException(String.format("Expected 4 coefficients for each of %s phases but got %s", boundaries.length-1, coefficients.length));
+		}
+		this.boundaries = boundaries;
+		this.coefficients = coefficients;
+		this.cursor = new SearchCursor();
+	}
+
+	/**
+	 * Creates a MotionProfile whose acceleration is constant within each phase.
+	 * @param startTime absolute time at which the curve starts.
+	 * @param startPosition
+	 * @param startVelocity
+	 * @param durations nonnegative duration of each phase.
+	 * @param accelerations acceleration during each phase.
+	 * @return the continuous piecewise quadratic curve.
+	 */
+	public static MotionProfile fromAccelerations(double startTime, double startPosition, double startVelocity, double[] durations, double[] accelerations) {
+		int n = durations.length;
+		double[] boundaries = new double[n+1];
+		double[] coefficients = new double[4*n];
+
+		double t = startTime, x = startPosition, v = startVelocity;
+		for (int k = 0; k < n; k++) {
+			double dt = durations[k], a = accelerations[k];
+			boundaries[k] = t;
+			coefficients[4*k] = x;
+			coefficients[4*k+1] = v;
+			coefficients[4*k+2] = 0.5*a;
+			coefficients[4*k+3] = 0;
+
+			t += dt;
+			x += (v + 0.5*a*dt)*dt;
+			v += a*dt;
+		}
+		boundaries[n] = t;
+		return new MotionProfile(boundaries, coefficients);
+	}
+
+	/**
+	 * Creates a MotionProfile whose jerk is constant within each phase.
+	 * @param startTime absolute time at which the curve starts.
+	 * @param startPosition
+	 * @param startVelocity
+	 * @param startAcceleration
+	 * @param durations nonnegative duration of each phase.
+	 * @param jerks jerk during each phase.
+	 * @return the continuous piecewise cubic curve.
+	 */
+	public static MotionProfile fromJerks(double startTime, double startPosition, double startVelocity, double startAcceleration, double[] durations, double[] jerks) {
+		int n = durations.length;
+		double[] boundaries = new double[n+1];
+		double[] coefficients = new double[4*n];
+
+		double t = startTime, x = startPosition, v = startVelocity, a = startAcceleration;
+		for (int k = 0; k < n; k++) {
+			double dt = durations[k], j = jerks[k];
+			boundaries[k] = t;
+			coefficients[4*k] = x;
+			coefficients[4*k+1] = v;
+			coefficients[4*k+2] = 0.5*a;
+			coefficients[4*k+3] = j/6;
+
+			t += dt;
+			x += ((j/6*dt + 0.5*a)*dt + v)*dt;
+			v += (0.5*j*dt + a)*dt;
+			a += j*dt;
+		}
+		boundaries[n] = t;
+		return new MotionProfile(boundaries, coefficients);
+	}
+
+	/**
+	 * @param factor
+	 * @return a new MotionProfile with every position multiplied by the given factor.
+	 */
+	public MotionProfile scale(double factor) {
+		double[] scaled = new double[coefficients.length];
+		for (int i = 0; i < scaled.length; i++) scaled[i] = coefficients[i] * factor;
+		return new MotionProfile(boundaries, scaled);
+	}
+
+	/**
+	 * @return the absolute time at which the curve starts.
+	 */
+	public double getStartTime() {
+		return boundaries[0];
+	}
+
+	/**
+	 * @return the absolute time at which the curve ends.
+	 */
+	public double getEndTime() {
+		return boundaries[boundaries.length-1];
+	}
+
+	/**
+	 * @return the number of phases.
+	 */
+	public int getPhaseCount() {
+		return boundaries.length - 1;
+	}
+
+	/**
+	 * @param time absolute time.
+	 * @return the position at the given time.
+	 */
+	public double getPosition(double time) {
+		int k = getPhase(time);
+		double tau = bound(time, boundaries[0], boundaries[boundaries.length-1]) - boundaries[k];
+		int i = 4*k;
+		return ((coefficients[i+3]*tau + coefficients[i+2])*tau + coefficients[i+1])*tau + coefficients[i];
+	}
+
+	/**
+	 * @param time absolute time.
+	 * @return the velocity at the given time.
+	 */
+	public double getVelocity(double time) {
+		int k = getPhase(time);
+		double tau = bound(time, boundaries[0], boundaries[boundaries.length-1]) - boundaries[k];
+		int i = 4*k;
+		return (3*coefficients[i+3]*tau + 2*coefficients[i+2])*tau + coefficients[i+1];
+	}
+
+	/**
+	 * @param time absolute time.
+	 * @return the acceleration at the given time, or zero before the curve starts and from its end on, where it holds its final state.
+	 */
+	public double getAcceleration(double time) {
+		if (time < boundaries[0] || time >= boundaries[boundaries.length-1]) return 0;
+		int k = getPhase(time);
+		double tau = time - boundaries[k];
+		int i = 4*k;
+		return 6*coefficients[i+3]*tau + 2*coefficients[i+2];
+	}
+
+	/**
+	 * @param time absolute time.
+	 * @return the jerk at the given time, or zero before the curve starts and from its end on, where it holds its final state.
+	 */
+	public double getJerk(double time) {
+		if (time < boundaries[0] || time >= boundaries[boundaries.length-1]) return 0;
+		return 6*coefficients[4*getPhase(time)+3];
+	}
+
+	/**
+	 * Writes the position at each of the given times into out in one pass, which is fastest when the times are sorted.
+	 * @param times absolute times.
+	 * @param out buffer of at least times.length values.
+	 */
+	public void evaluate(double[] times, double[] out) {
+		evaluate(times, out, null, null);
+	}
+
+	/**
+	 * Writes the position, velocity, and acceleration at each of the given times in one pass, which is fastest when the times are sorted.
+	 * @param times absolute times.
+	 * @param positions buffer of at least times.length values, or null to skip.
+	 * @param velocities buffer of at least times.length values, or null to skip.
+	 * @param accelerations buffer of at least times.length values, or null to skip. Zero outside of the curve as in getAcceleration().
+	 */
+	public void evaluate(double[] times, double[] positions, double[] velocities, double[] accelerations) {
+		double start = boundaries[0], end = boundaries[boundaries.length-1];
+		int last = boundaries.length - 2;
+		int k = 0;
+		for (int s = 0; s < times.length; s++) {
+			double time = times[s];
+			double t = time < start ? start : (time > end ? end : time);
+
+			// walk to the phase containing t
+			while (k < last && boundaries[k+1] <= t) k++;
+			while (k > 0 && boundaries[k] > t) k--;
+
+			double tau = t - boundaries[k];
+			int i = 4*k;
+			double c1 = coefficients[i+1], c2 = coefficients[i+2], c3 = coefficients[i+3];
+			if (positions != null) positions[s] = ((c3*tau + c2)*tau + c1)*tau + coefficients[i];
+			if (velocities != null) velocities[s] = (3*c3*tau + 2*c2)*tau + c1;
+			if (accelerations != null) accelerations[s] = (time < start || time >= end) ? 0 : 6*c3*tau + 2*c2;
+		}
+	}
+
+	/**
+	 * @param time absolute time.
+	 * @return the index of the phase containing the given time, clipped to the first and last phase.
+	 */
+	private int getPhase(double time) {
+		return Math.min(boundaries.length-2, cursor.search(boundaries, time));
+	}
+
+	/**
+	 * Clips the input x between a given lower and upper bound.
+	 * @param x
+	 * @param lower
+	 * @param upper
+	 * @return the clipped value of x.
+	 */
+	private static double bound(double x, double lower, double upper) {
+		return Math.max(lower, Math.min(upper, x));
+	}
+
+}
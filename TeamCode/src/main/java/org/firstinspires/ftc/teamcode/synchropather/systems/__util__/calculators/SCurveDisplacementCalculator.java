@@ -0,0 +1,242 @@
+package org.firstinspires.ftc.teamcode.synchropather.systems.__util__.calculators;
+
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.TimeSpan;
+
+/**
+ * Object that calculates position based on elapsed time from a jerk-limited S-curve velocity curve defined by
+ * displacement, time and adjusted max velocity, max acceleration, max deceleration, and max jerk.
+ * <p>
+ * The curve has up to seven phases: jerk up, constant acceleration, jerk down, cruise, and the mirrored deceleration,
+ * which is limited by max deceleration instead of max acceleration.
+ * Phases whose limits are never reached have zero length.
+ */
+public class SCurveDisplacementCalculator extends StretchedDisplacementCalculator {
+
+	/**
+	 * The number of bisection steps used to solve for the peak velocity.
+	 */
+	private static final int SOLVER_ITERATIONS = 64;
+
+	private double MJ;
+
+	/**
+	 * Creates a new SCurveDisplacementCalculator with a given target, timeSpan, and symmetric kinematic constraints.
+	 * @param targetDisplacement
+	 * @param timeSpan
+	 * @param MV
+	 * @param MA
+	 * @param MJ
+	 */
+	public SCurveDisplacementCalculator(double targetDisplacement, TimeSpan timeSpan, double MV, double MA, double MJ) {
+		this(targetDisplacement, timeSpan, MV, MA, MA, MJ);
+	}
+
+	/**
+	 * Creates a new SCurveDisplacementCalculator with a given target, timeSpan, and kinematic constraints.
+	 * @param targetDisplacement
+	 * @param timeSpan
+	 * @param MV
+	 * @param MA
+	 * @param MD max deceleration, as a positive value.
+	 * @param MJ
+	 */
+	public SCurveDisplacementCalculator(double targetDisplacement, TimeSpan timeSpan, double MV, double MA, double MD, double MJ) {
+		super(targetDisplacement, MV, MA, MD);
+		if (!(MJ > 0)) {
+			throw new RuntimeException(String.format("Max jerk %s must be positive", MJ));
+		}
+		this.MJ = MJ;
+		this.timeSpan = timeSpan;
+		init();
+	}
+
+	/**
+	 * Sets a new duration and finds max velocity accordingly.
+	 */
+	@Override
+	public void setTimeSpan(TimeSpan newTimeSpan) {
+		timeSpan = newTimeSpan;
+
+		/// catch error for when time < min_time
+		if (getDuration() - minDuration < -1e-3) {
+			throw new RuntimeException(
+					String.format("TimeSpan duration %s is less than the minimum needed time %s.",
+							getDuration(),
+							minDuration
+					)
+			);
+		}
+
+		// floating point error correction
+		if (getDuration() < minDuration) {
+			timeSpan = new TimeSpan(getStartTime(), getStartTime() + minDuration);
+		}
+
+		/// calculate peak velocity
+		// total time D/v + (t_a(v) + t_d(v))/2 strictly decreases in v wherever the cruise phase exists,
+		// so the stretched peak velocity is the unique root below the fastest peak velocity
+		if (distance == 0) {
+			setPeakVelocity(0);
+			return;
+		}
+		double lower = 0, upper = findPeakVelocity(distance, MV, MA, MD, MJ);
+		for (int i = 0; i < SOLVER_ITERATIONS; i++) {
+			double v = 0.5*(lower + upper);
+			if (distance/v + rampTime(v, MA, MD, MJ) > getDuration()) {
+				lower = v;
+			} else {
+				upper = v;
+			}
+		}
+		setPeakVelocity(upper);
+	}
+
+	/**
+	 * Jerk-limited curves always start and end at rest, so only zero boundary velocities are accepted.
+	 * @param startVelocity
+	 * @param endVelocity
+	 */
+	@Override
+	public void setBoundaryVelocities(double startVelocity, double endVelocity) {
+		if (startVelocity != 0 || endVelocity != 0) {
+			throw new RuntimeException("Jerk-limited curves must start and end at rest");
+		}
+	}
+
+	/**
+	 * @return 0, since jerk-limited curves end at rest.
+	 */
+	@Override
+	public double getMaxEndVelocity(double startVelocity) {
+		return 0;
+	}
+
+	/**
+	 * @return 0, since jerk-limited curves start at rest.
+	 */
+	@Override
+	public double getMaxStartVelocity(double endVelocity) {
+		return 0;
+	}
+
+	/**
+	 * Calculates the jerk at a certain elapsed time.
+	 * @param elapsedTime
+	 * @return the jerk value the given elapsed time.
+	 */
+	public double getJerk(double elapsedTime) {
+		return profile.getJerk(elapsedTime);
+	}
+
+	/**
+	 * @return the max jerk of this calculator.
+	 */
+	public double getMaxJerk() {
+		return MJ;
+	}
+
+	/**
+	 * Calculates the minimum time needed to travel the given distance from rest to rest under the given symmetric constraints.
+	 * @param distance
+	 * @param MV
+	 * @param MA
+	 * @param MJ
+	 * @return the minimum duration.
+	 */
+	public static double findMinDuration(double distance, double MV, double MA, double MJ) {
+		return findMinDuration(distance, MV, MA, MA, MJ);
+	}
+
+	/**
+	 * Calculates the minimum time needed to travel the given distance from rest to rest under the given constraints.
+	 * @param distance
+	 * @param MV
+	 * @param MA
+	 * @param MD
+	 * @param MJ
+	 * @return the minimum duration.
+	 */
+	public static double findMinDuration(double distance, double MV, double MA, double MD, double MJ) {
+		if (distance == 0) return 0;
+		double v = findPeakVelocity(distance, MV, MA, MD, MJ);
+		return distance/v + rampTime(v, MA, MD, MJ);
+	}
+
+	/**
+	 * Calculates min time and max velocity.
+	 */
+	@Override
+	public void init() {
+		minDuration = findMinDuration(distance, MV, MA, MD, MJ);
+		setTimeSpan(timeSpan);
+	}
+
+	/**
+	 * Finds the highest peak velocity that can be reached within the given distance, which is MV if the profile cruises.
+	 * @param distance
+	 * @param MV
+	 * @param MA
+	 * @param MD
+	 * @param MJ
+	 * @return the fastest peak velocity.
+	 */
+	private static double findPeakVelocity(double distance, double MV, double MA, double MD, double MJ) {
+		// accelerating to v and back takes v * (t_a(v) + t_d(v))/2 distance, which increases with v
+		if (MV * rampTime(MV, MA, MD, MJ) <= distance) return MV;
+		double lower = 0, upper = MV;
+		for (int i = 0; i < SOLVER_ITERATIONS; i++) {
+			double v = 0.5*(lower + upper);
+			if (v * rampTime(v, MA, MD, MJ) <= distance) {
+				lower = v;
+			} else {
+				upper = v;
+			}
+		}
+		return lower;
+	}
+
+	/**
+	 * Calculates the mean time of accelerating from rest to the given velocity and decelerating back to rest, which is also the
+	 * time lost to both ramps compared to cruising the whole distance.
+	 * @param v
+	 * @param MA
+	 * @param MD
+	 * @param MJ
+	 * @return half the total duration of the acceleration and deceleration phases.
+	 */
+	private static double rampTime(double v, double MA, double MD, double MJ) {
+		return 0.5*(accelerationTime(v, MA, MJ) + accelerationTime(v, MD, MJ));
+	}
+
+	/**
+	 * Calculates the time needed to accelerate from rest to the given velocity.
+	 * @param v
+	 * @param MA
+	 * @param MJ
+	 * @return the duration of the acceleration phase.
+	 */
+	private static double accelerationTime(double v, double MA, double MJ) {
+		if (v * MJ >= MA*MA) {
+			// acceleration limit is reached
+			return v/MA + MA/MJ;
+		} else {
+			// jerk phases only
+			return 2*Math.sqrt(v/MJ);
+		}
+	}
+
+	/**
+	 * Sets the peak velocity and derives the phase durations from it.
+	 * @param v
+	 */
+	private void setPeakVelocity(double v) {
+		peakVelocity = v;
+		double t_a = accelerationTime(v, MA, MJ), t_d = accelerationTime(v, MD, MJ);
+		double t_ja = Math.min(MA/MJ, 0.5*t_a), t_jd = Math.min(MD/MJ, 0.5*t_d);
+		profile = MotionProfile.fromJerks(getStartTime(), 0, 0, 0,
+				new double[]{t_ja, t_a - 2*t_ja, t_ja, Math.max(0, getDuration() - t_a - t_d), t_jd, t_d - 2*t_jd, t_jd},
+				new double[]{MJ, 0, -MJ, 0, -MJ, 0, MJ}
+		).scale(sign);
+	}
+
+}
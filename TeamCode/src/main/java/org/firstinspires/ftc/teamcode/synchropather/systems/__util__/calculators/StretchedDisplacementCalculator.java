@@ -3,26 +3,56 @@ package org.firstinspires.ftc.teamcode.synchropather.systems.__util__.calculator
 import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.TimeSpan;
 
 /**
- * Object that calculates position based on elapsed time from a velocity curve defined by displacement, time and adjusted max velocity, and max acceleration.
+ * Object that calculates position based on elapsed time from a velocity curve defined by displacement, time and adjusted max velocity,
+ * max acceleration, and max deceleration.
  */
 public class StretchedDisplacementCalculator extends DisplacementCalculator {
 
-	private double minDuration;
-	private TimeSpan timeSpan;
+	protected double minDuration;
+	protected TimeSpan timeSpan;
 
 	/**
-	 * Creates a new StretchedDisplacementCalculator with a given target, timeSpan, and kinematic constraints.
+	 * The unsigned velocities at the start and end of the curve, and the velocity it cruises at in between.
+	 */
+	protected double startVelocity, endVelocity, peakVelocity;
+
+	/**
+	 * Creates a new StretchedDisplacementCalculator with a given target, timeSpan, and symmetric kinematic constraints.
 	 * @param targetDisplacement
 	 * @param timeSpan
 	 * @param MV
 	 * @param MA
 	 */
 	public StretchedDisplacementCalculator(double targetDisplacement, TimeSpan timeSpan, double MV, double MA) {
-		super(targetDisplacement, MV, MA);
+		this(targetDisplacement, timeSpan, MV, MA, MA);
+	}
+
+	/**
+	 * Creates a new StretchedDisplacementCalculator with a given target, timeSpan, and kinematic constraints.
+	 * @param targetDisplacement
+	 * @param timeSpan
+	 * @param MV
+	 * @param MA
+	 * @param MD max deceleration, as a positive value.
+	 */
+	public StretchedDisplacementCalculator(double targetDisplacement, TimeSpan timeSpan, double MV, double MA, double MD) {
+		super(targetDisplacement, MV, MA, MD);
 		this.timeSpan = timeSpan;
 		init();
 	}
 
+	/**
+	 * Creates a new StretchedDisplacementCalculator without calculating its velocity curve, so that subclasses can
+	 * set their own constraints and timeSpan before calling init().
+	 * @param targetDisplacement
+	 * @param MV
+	 * @param MA
+	 * @param MD max deceleration, as a positive value.
+	 */
+	protected StretchedDisplacementCalculator(double targetDisplacement, double MV, double MA, double MD) {
+		super(targetDisplacement, MV, MA, MD);
+	}
+
 	/**
 	 * @return the absolute value of the target displacement.
 	 */
@@ -37,6 +67,13 @@ public class StretchedDisplacementCalculator extends DisplacementCalculator {
 		return distance * sign;
 	}
 
+	/**
+	 * @return the TimeSpan the velocity curve is stretched to.
+	 */
+	public TimeSpan getTimeSpan() {
+		return timeSpan;
+	}
+
 	/**
 	 * @return the timestamp for when the Movement starts.
 	 */
@@ -86,111 +123,188 @@ public class StretchedDisplacementCalculator extends DisplacementCalculator {
 			timeSpan = new TimeSpan(getStartTime(), getStartTime() + minDuration);
 		}
 
-		/// calculate MV
+		/// calculate peak velocity
 		// we now know that time >= min_time, so we might need to stretch the graph
-		// we use quadratic formula to find MV (minus root)
+		// accelerating from v0 and decelerating to v1 around a cruise at v gives
+		// (1/2MA + 1/2MD)v^2 - (T + v0/MA + v1/MD)v + (D + v0^2/2MA + v1^2/2MD) = 0, and we use the minus root
+		double v0 = startVelocity, v1 = endVelocity;
 		double a, b, c, discriminant;
-		a = 1/MA;
-		b = -getDuration();
-		c = distance;
+		a = 0.5/MA + 0.5/MD;
+		b = -(getDuration() + v0/MA + v1/MD);
+		c = distance + 0.5*v0*v0/MA + 0.5*v1*v1/MD;
 		// clip to prevent floating point error and ensure d >= 0
 		discriminant = Math.max(0, b*b - 4*a*c);
-		MV = (-b - Math.sqrt(discriminant))/(2*a);
+		double v = (-b - Math.sqrt(discriminant))/(2*a);
 
+		// a long duration with nonzero boundary velocities needs a cruise below v0 or v1, which the quadratic does not cover
+		if (v < Math.max(v0, v1)) {
+			v = solvePeakVelocity(getDuration());
+		}
+
+		setPeakVelocity(v);
 	}
 
 	/**
-	 * Calculates the displacement at a certain elapsed time.
-	 * @param elapsedTime 
-	 * @return the displacement value the given elapsed time.
+	 * Sets the velocities at the start and end of the curve and fits it to the new minimum duration from the same start time.
+	 * @param startVelocity unsigned velocity at the start time, in [0, MV].
+	 * @param endVelocity unsigned velocity at the end time, in [0, MV].
 	 */
-	public double getDisplacement(double elapsedTime) {
-		elapsedTime = bound(elapsedTime-getStartTime(), 0, getDuration());
-		
-		double D = Math.abs(this.distance);
-		double displacement;
-		
-		double t_n = getDuration() - elapsedTime, t_a = MV/MA;
-		if (getDuration() <= 2*t_a) {
-			// triangle graph
-			if (elapsedTime <= getDuration()/2)
-				displacement = 0.5*MA*elapsedTime*elapsedTime;
-			else
-				displacement = D - 0.5*MA*t_n*t_n;
-		} 
-		else {
-			// trapezoid graph
-			if (elapsedTime <= getDuration()/2)
-				displacement = 0.5*(elapsedTime + Math.max(0, elapsedTime - t_a))* Math.min(MV, MA*elapsedTime);
-			else
-				displacement = D - 0.5*(t_n + Math.max(0, t_n - t_a))* Math.min(MV, MA*t_n);
+	public void setBoundaryVelocities(double startVelocity, double endVelocity) {
+		if (startVelocity < 0 || endVelocity < 0 || startVelocity > MV + 1e-9 || endVelocity > MV + 1e-9) {
+			throw new RuntimeException(String.format("Boundary velocities %s and %s must be between 0 and %s", startVelocity, endVelocity, MV));
+		}
+		double rate = endVelocity > startVelocity ? MA : MD;
+		if (Math.abs(endVelocity*endVelocity - startVelocity*startVelocity) > 2*rate*distance + 1e-6) {
+			throw new RuntimeException(String.format("Cannot change velocity from %s to %s within displacement %s", startVelocity, endVelocity, distance));
 		}
+		this.startVelocity = Math.min(startVelocity, MV);
+		this.endVelocity = Math.min(endVelocity, MV);
+		minDuration = findMinDuration(distance, MV, MA, MD, this.startVelocity, this.endVelocity);
+		setTimeSpan(new TimeSpan(getStartTime(), getStartTime() + minDuration));
+	}
 
-		displacement *= sign;
-		
-		return displacement;
+	/**
+	 * @return the unsigned velocity at the start time.
+	 */
+	public double getStartVelocity() {
+		return startVelocity;
 	}
 
 	/**
-	 * Calculates the velocity at a certain elapsed time.
-	 * @param elapsedTime 
-	 * @return the velocity value the given elapsed time.
+	 * @return the unsigned velocity at the end time.
 	 */
-	public double getVelocity(double elapsedTime) {
-		if (distance == 0) return 0;
-		elapsedTime = bound(elapsedTime-getStartTime(), 0, getDuration());
-		
-		double velocity;
-		
-		double t_n = getDuration() - elapsedTime, t_a = MV/MA;
-		if (getDuration() <= 2*t_a) {
-			// triangle graph
-			if (elapsedTime <= getDuration()/2)
-				velocity = MA*elapsedTime;
-			else
-				velocity = MA*t_n;
-		} 
-		else {
-			// trapezoid graph
-			if (elapsedTime <= getDuration()/2)
-				velocity = Math.min(MV, MA*elapsedTime);
-			else
-				velocity = Math.min(MV, MA*t_n);
-		}
-		
-		velocity *= sign;
-		
-		return velocity;
+	public double getEndVelocity() {
+		return endVelocity;
+	}
+
+	/**
+	 * @param startVelocity unsigned velocity at the start time.
+	 * @return the highest unsigned velocity reachable at the end time when starting at startVelocity.
+	 */
+	public double getMaxEndVelocity(double startVelocity) {
+		return Math.min(MV, Math.sqrt(startVelocity*startVelocity + 2*MA*distance));
+	}
+
+	/**
+	 * @param endVelocity unsigned velocity at the end time.
+	 * @return the highest unsigned velocity at the start time that can still slow down to endVelocity.
+	 */
+	public double getMaxStartVelocity(double endVelocity) {
+		return Math.min(MV, Math.sqrt(endVelocity*endVelocity + 2*MD*distance));
 	}
 
 	public static double findMinDuration(double distance, double MV, double MA) {
-		double d_a = 0.5 * MV*MV / MA;
-		if (distance / 2 <= d_a) {
-			// triangle graph
-			return 2*Math.sqrt(distance/MA);
-		} else {
-			// trapezoid graph
-			return distance/MV + MV/MA;
-		}
+		return findMinDuration(distance, MV, MA, MA, 0, 0);
+	}
+
+	/**
+	 * Calculates the minimum time needed to travel the given distance between the given unsigned boundary velocities.
+	 * @param distance
+	 * @param MV
+	 * @param MA
+	 * @param MD
+	 * @param startVelocity
+	 * @param endVelocity
+	 * @return the minimum duration.
+	 */
+	public static double findMinDuration(double distance, double MV, double MA, double MD, double startVelocity, double endVelocity) {
+		double v0 = startVelocity, v1 = endVelocity;
+		// fastest peak velocity whose acceleration and deceleration fit within the distance
+		double v = Math.min(MV, Math.sqrt((distance + 0.5*v0*v0/MA + 0.5*v1*v1/MD) / (0.5/MA + 0.5/MD)));
+		v = Math.max(v, Math.max(v0, v1));
+		if (v == 0) return 0;
+		double rampDistance = 0.5*(v*v - v0*v0)/MA + 0.5*(v*v - v1*v1)/MD;
+		return (v - v0)/MA + (v - v1)/MD + Math.max(0, distance - rampDistance)/v;
 	}
 
 	/**
 	 * Calculates min time and max velocity.
 	 */
 	public void init() {
-		minDuration = findMinDuration(distance, MV, MA);
+		minDuration = findMinDuration(distance, MV, MA, MD, startVelocity, endVelocity);
 		setTimeSpan(timeSpan);
 	}
 
 	/**
-	 * Clips the input x between a given lower and upper bound.
-	 * @param x
-	 * @param lower
-	 * @param upper
-	 * @return the clipped value of x.
+	 * Finds the peak velocity at or below max(v0, v1) whose curve takes the given duration.
+	 * @param duration
+	 * @return the peak velocity.
 	 */
-	private static double bound(double x, double lower, double upper) {
-		return Math.max(lower, Math.min(upper, x));
+	private double solvePeakVelocity(double duration) {
+		double v0 = startVelocity, v1 = endVelocity;
+
+		// the lowest cruise velocity that can still be reached by decelerating from v0 and left by accelerating to v1 within the distance
+		double lower = Math.sqrt(Math.max(0, (0.5*v0*v0/MD + 0.5*v1*v1/MA - distance) / (0.5/MD + 0.5/MA)));
+		double upper = Math.max(v0, v1);
+		if (getDuration(lower) < duration - 1e-9) {
+			throw new RuntimeException(
+					String.format("TimeSpan duration %s is more than the maximum time %s possible with boundary velocities %s and %s.",
+							duration,
+							getDuration(lower),
+							v0,
+							v1
+					)
+			);
+		}
+
+		// the duration decreases as the peak velocity increases
+		for (int i = 0; i < 64; i++) {
+			double v = 0.5*(lower + upper);
+			if (getDuration(v) > duration) {
+				lower = v;
+			} else {
+				upper = v;
+			}
+		}
+		return upper;
+	}
+
+	/**
+	 * @param v cruise velocity.
+	 * @return the duration of the curve from startVelocity to endVelocity that cruises at the given velocity.
+	 */
+	private double getDuration(double v) {
+		double v0 = startVelocity, v1 = endVelocity;
+		double rate0 = getRampRate(v0, v), rate1 = getRampRate(v, v1);
+		double rampTime = Math.abs(v - v0)/rate0 + Math.abs(v - v1)/rate1;
+		double rampDistance = Math.abs(v*v - v0*v0)/(2*rate0) + Math.abs(v*v - v1*v1)/(2*rate1);
+		double cruiseDistance = Math.max(0, distance - rampDistance);
+		if (cruiseDistance == 0) return rampTime;
+		return v > 0 ? rampTime + cruiseDistance/v : Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * @param from unsigned velocity at the start of a ramp.
+	 * @param to unsigned velocity at the end of a ramp.
+	 * @return MA if the ramp speeds up, otherwise MD.
+	 */
+	private double getRampRate(double from, double to) {
+		return to > from ? MA : MD;
+	}
+
+	/**
+	 * Sets the cruise velocity and derives the duration and acceleration of each phase from it.
+	 * @param v
+	 */
+	private void setPeakVelocity(double v) {
+		peakVelocity = v;
+		double rate0 = getRampRate(startVelocity, v), rate1 = getRampRate(v, endVelocity);
+		double t_a = Math.abs(v - startVelocity)/rate0;
+		double t_d = Math.abs(v - endVelocity)/rate1;
+		double a_a = Math.signum(v - startVelocity)*rate0;
+		double a_d = Math.signum(endVelocity - v)*rate1;
+
+		// floating point error correction for curves without a cruise phase
+		if (t_a + t_d > getDuration()) {
+			double scale = getDuration() / (t_a + t_d);
+			t_a *= scale;
+			t_d *= scale;
+		}
+
+		profile = MotionProfile.fromAccelerations(getStartTime(), 0, startVelocity,
+				new double[]{t_a, getDuration() - t_a - t_d, t_d},
+				new double[]{a_a, 0, a_d}
+		).scale(sign);
 	}
 	
 }
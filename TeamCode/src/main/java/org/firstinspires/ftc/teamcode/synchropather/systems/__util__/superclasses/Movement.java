@@ -1,6 +1,8 @@
 package org.firstinspires.ftc.teamcode.synchropather.systems.__util__.superclasses;
 
 import org.firstinspires.ftc.teamcode.synchropather.systems.MovementType;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.ContentHash;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.MotionSample;
 import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.TimeSpan;
 
 /**
@@ -84,6 +86,137 @@ public abstract class Movement {
 	 */
 	public abstract RobotState getVelocity(double elapsedTime);
 
+	/**
+	 * Writes the robot's desired RobotState in this Movement at the given elapsed time into the given buffer.
+	 * Subclasses override this to sample without allocating.
+	 * @param elapsedTime
+	 * @param out buffer of at least movementType.dimension values.
+	 */
+	public void getState(double elapsedTime, double[] out) {
+		getState(elapsedTime).copyTo(out);
+	}
+
+	/**
+	 * Writes the robot's desired velocity RobotState in this Movement at the given elapsed time into the given buffer.
+	 * Subclasses override this to sample without allocating.
+	 * @param elapsedTime
+	 * @param out buffer of at least movementType.dimension values.
+	 */
+	public void getVelocity(double elapsedTime, double[] out) {
+		getVelocity(elapsedTime).copyTo(out);
+	}
+
+	/**
+	 * Writes the position, velocity, and acceleration of this Movement at the given elapsed time into the given sample.
+	 * Subclasses override this to compute all three in one pass without allocating; this default differentiates getVelocity() numerically.
+	 * @param elapsedTime
+	 * @param out
+	 */
+	public void sample(double elapsedTime, MotionSample out) {
+		double h = 1e-4;
+		getState(elapsedTime, out.position);
+		getVelocity(elapsedTime + h, out.acceleration);
+		getVelocity(elapsedTime - h, out.velocity);
+		for (int i = 0; i < out.acceleration.length; i++) {
+			out.acceleration[i] = (out.acceleration[i] - out.velocity[i]) / (2*h);
+		}
+		getVelocity(elapsedTime, out.velocity);
+	}
+
+	/**
+	 * Returns the position, velocity, and acceleration of this Movement at the given elapsed time.
+	 * @param elapsedTime
+	 * @return a new MotionSample.
+	 */
+	public MotionSample sample(double elapsedTime) {
+		MotionSample sample = new MotionSample(movementType);
+		sample(elapsedTime, sample);
+		return sample;
+	}
+
+	/**
+	 * @return whether this Movement can start and end at nonzero speed, so that consecutive Movements can be chained without stopping.
+	 */
+	public boolean supportsBoundarySpeeds() {
+		return false;
+	}
+
+	/**
+	 * Sets the unsigned speeds at the start and end of this Movement and fits it to the new minimum duration from the same start time.
+	 * @param startSpeed
+	 * @param endSpeed
+	 */
+	public void setBoundarySpeeds(double startSpeed, double endSpeed) {
+		throw new RuntimeException(String.format("%s does not support nonzero boundary speeds", getDisplayName()));
+	}
+
+	/**
+	 * @return the unsigned speed at the start time.
+	 */
+	public double getStartSpeed() {
+		return 0;
+	}
+
+	/**
+	 * @return the unsigned speed at the end time.
+	 */
+	public double getEndSpeed() {
+		return 0;
+	}
+
+	/**
+	 * @param startSpeed unsigned speed at the start time.
+	 * @return the highest unsigned speed reachable at the end time when starting at startSpeed.
+	 */
+	public double getMaxEndSpeed(double startSpeed) {
+		return 0;
+	}
+
+	/**
+	 * @param endSpeed unsigned speed at the end time.
+	 * @return the highest unsigned speed at the start time that can still slow down to endSpeed.
+	 */
+	public double getMaxStartSpeed(double endSpeed) {
+		return 0;
+	}
+
+	/**
+	 * @return the max speed of this Movement.
+	 */
+	public double getMaxSpeed() {
+		return 0;
+	}
+
+	/**
+	 * @return the max acceleration of this Movement.
+	 */
+	public double getMaxAcceleration() {
+		return 0;
+	}
+
+	/**
+	 * @return the max deceleration of this Movement, as a positive value.
+	 */
+	public double getMaxDeceleration() {
+		return 0;
+	}
+
+	/**
+	 * Writes the unit direction of motion at the start of this Movement into the given buffer, or zeros if it does not move.
+	 * @param out buffer of at least movementType.dimension values.
+	 */
+	public void getStartDirection(double[] out) {
+		for (int i = 0; i < movementType.dimension; i++) out[i] = 0;
+	}
+
+	/**
+	 * Writes the unit direction of motion at the end of this Movement into the given buffer, or zeros if it does not move.
+	 * @param out buffer of at least movementType.dimension values.
+	 */
+	public void getEndDirection(double[] out) {
+		for (int i = 0; i < movementType.dimension; i++) out[i] = 0;
+	}
+
 	/**
 	 * @return the RobotState of this Movement at time zero.
 	 */
@@ -99,4 +232,34 @@ public abstract class Movement {
 	 */
 	public abstract String getDisplayName();
 
+	/**
+	 * Adds everything that determines the motion of this Movement to the given hash.
+	 * Subclasses with inputs beyond their TimeSpan, boundary speeds, start, and end states must add those too.
+	 * @param hash
+	 */
+	public void hashContent(ContentHash hash) {
+		hash.add(getDisplayName());
+		hash.add(getStartTime());
+		hash.add(getEndTime());
+		hash.add(getStartSpeed());
+		hash.add(getEndSpeed());
+		hashState(hash, getStartState());
+		hashState(hash, getEndState());
+	}
+
+	/**
+	 * Adds the values of the given RobotState to the given hash.
+	 * @param hash
+	 * @param state
+	 */
+	protected void hashState(ContentHash hash, RobotState state) {
+		if (state == null) {
+			hash.add(0L);
+			return;
+		}
+		double[] values = new double[movementType.dimension];
+		state.copyTo(values);
+		for (double value : values) hash.add(value);
+	}
+
 }
@@ -1,6 +1,11 @@
 package org.firstinspires.ftc.teamcode.synchropather.systems.__util__.superclasses;
 
 import org.firstinspires.ftc.teamcode.synchropather.systems.MovementType;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.BakedTrajectory;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.ChassisCommand;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.ContentHash;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.MotionSample;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.SearchCursor;
 import java.util.*;
 
 /**
@@ -12,6 +17,26 @@ public abstract class Plan<T extends RobotState> {
 	 * The sequence of Movements in this Plan.
 	 */
 	private ArrayList<Movement> movements;
+
+	/**
+	 * The start time of each Movement, in the same order as movements.
+	 */
+	private double[] startTimes;
+
+	/**
+	 * Remembers the last active Movement so that lookups at increasing times do not rescan the sequence.
+	 */
+	private final SearchCursor cursor;
+
+	/**
+	 * If not null, all lookups are served from this precomputed trajectory instead of the Movements.
+	 */
+	private BakedTrajectory bakedTrajectory;
+
+	/**
+	 * The sample at the end of this Plan, which every lookup at or after getDuration() is served from once computed.
+	 */
+	private MotionSample finalSample;
 	
 	/**
 	 * The elapsed time that indicates the target RobotState that calling loop() will correct to.
@@ -44,6 +69,26 @@ public abstract class Plan<T extends RobotState> {
 			int index = checkValidity(movement);
 			this.movements.add(index, movement);
 		}
+
+		this.startTimes = new double[this.movements.size()];
+		for (int i = 0; i < startTimes.length; i++) {
+			startTimes[i] = this.movements.get(i).getStartTime();
+		}
+		this.cursor = new SearchCursor();
+	}
+
+	/**
+	 * Creates a new Plan object without Movements that serves all lookups from the given BakedTrajectory,
+	 * such as one generated at build time.
+	 * @param bakedTrajectory
+	 */
+	public Plan(BakedTrajectory bakedTrajectory) {
+		this.movementType = bakedTrajectory.movementType;
+		this.targetTime = 0;
+		this.movements = new ArrayList<>();
+		this.startTimes = new double[0];
+		this.cursor = new SearchCursor();
+		this.bakedTrajectory = bakedTrajectory;
 	}
 	
 	/**
@@ -74,6 +119,92 @@ public abstract class Plan<T extends RobotState> {
 	 * Calling loop() will control this Plan's robot subsystem to the RobotState at targetTime.
 	 */
 	public abstract void loop();
+
+	/**
+	 * Controls this Plan's robot subsystem to the RobotState at targetTime, adding any chassis drive powers to the given
+	 * command instead of writing them to the motors, so that the Synchronizer can send one drive write per loop.
+	 * Plans that do not drive the chassis can keep this default, which calls loop().
+	 * @param command
+	 */
+	public void loop(ChassisCommand command) {
+		loop();
+	}
+
+	/**
+	 * Creates a RobotState of this Plan's type from the given primitive values.
+	 * @param values buffer of movementType.dimension values.
+	 * @return the indicated RobotState.
+	 */
+	protected abstract T createState(double[] values);
+
+	/**
+	 * @return a read-only view of the Movements in this Plan, in order.
+	 */
+	public List<Movement> getMovements() {
+		return Collections.unmodifiableList(movements);
+	}
+
+	/**
+	 * Reloads the start time of every Movement after their TimeSpans were changed, checking that they still do not overlap.
+	 * A BakedTrajectory sampled from the old timing is discarded.
+	 */
+	public void updateTimeSpans() {
+		for (int i = 0; i+1 < movements.size(); i++) {
+			if (movements.get(i+1).getStartTime() < movements.get(i).getEndTime() - 1e-9) {
+				throw new RuntimeException(String.format("Movement %s overlaps with an earlier movement", movements.get(i+1).getDisplayName()));
+			}
+		}
+		for (int i = 0; i < startTimes.length; i++) {
+			startTimes[i] = movements.get(i).getStartTime();
+		}
+		cursor.reset();
+		finalSample = null;
+		if (movements.size() > 0) {
+			bakedTrajectory = null;
+		}
+	}
+
+	/**
+	 * Samples this Plan every timeStep seconds and serves all later lookups from the resulting BakedTrajectory.
+	 * @param timeStep seconds between samples, > 0.
+	 * @return the baked trajectory.
+	 */
+	public BakedTrajectory bake(double timeStep) {
+		if (movements.size() == 0) throw new RuntimeException("Tried to call bake() with an empty Movements list");
+		bakedTrajectory = null;
+		finalSample = null;
+		bakedTrajectory = BakedTrajectory.bake(this, timeStep);
+		return bakedTrajectory;
+	}
+
+	/**
+	 * Serves all later lookups from the given BakedTrajectory, or from the Movements again if it is null.
+	 * @param bakedTrajectory
+	 */
+	public void setBakedTrajectory(BakedTrajectory bakedTrajectory) {
+		if (bakedTrajectory == null && movements.size() == 0) {
+			throw new RuntimeException("Tried to remove the BakedTrajectory of a Plan without Movements");
+		}
+		if (bakedTrajectory != null && bakedTrajectory.movementType != movementType) {
+			throw new RuntimeException(String.format("Baked trajectory type %s does not match the type of this Plan %s", bakedTrajectory.movementType, movementType));
+		}
+		this.bakedTrajectory = bakedTrajectory;
+		this.finalSample = null;
+	}
+
+	/**
+	 * @return the BakedTrajectory serving lookups, or null if this Plan is not baked.
+	 */
+	public BakedTrajectory getBakedTrajectory() {
+		return bakedTrajectory;
+	}
+
+	/**
+	 * @return whether lookups are served from a BakedTrajectory.
+	 */
+	public boolean isBaked() {
+		return bakedTrajectory != null;
+	}
 	
 	/**
 	 * Sets targetTime of this Plan to the given elapsedTime.
@@ -90,6 +221,14 @@ public abstract class Plan<T extends RobotState> {
 		return getState(targetTime);
 	}
 
+	/**
+	 * Writes the RobotState at the current targetTime into the given buffer without allocating.
+	 * @param out buffer of at least movementType.dimension values.
+	 */
+	public void getCurrentState(double[] out) {
+		getState(targetTime, out);
+	}
+
 	/**
 	 * Returns the RobotState at the given elapsedTime.
 	 * @param elapsedTime
@@ -97,15 +236,16 @@ public abstract class Plan<T extends RobotState> {
 	 */
 	@SuppressWarnings("unchecked")
 	public T getState(double elapsedTime) {
-		if (movements.size() == 0) throw new RuntimeException("Tried to call getState() with an empty Movements list");
-
-		// get index of the movement at targetTime
-		int index = 0;
-		while (index+1 < movements.size() && elapsedTime >= movements.get(index+1).getStartTime()) {
-			index++;
+		if (isFinished(elapsedTime)) {
+			return createState(getFinalSample().position);
 		}
-
-		return (T) movements.get(index).getState(elapsedTime);
+		if (bakedTrajectory != null) {
+			double[] values = new double[movementType.dimension];
+			bakedTrajectory.getState(elapsedTime, values);
+			return createState(values);
+		}
+		if (movements.size() == 0) throw new RuntimeException("Tried to call getState() with an empty Movements list");
+		return (T) movements.get(getMovementIndex(elapsedTime)).getState(elapsedTime);
 	}
 
 	/**
@@ -115,22 +255,146 @@ public abstract class Plan<T extends RobotState> {
 	 */
 	@SuppressWarnings("unchecked")
 	public T getVelocity(double elapsedTime) {
+		if (isFinished(elapsedTime)) {
+			return createState(getFinalSample().velocity);
+		}
+		if (bakedTrajectory != null) {
+			double[] values = new double[movementType.dimension];
+			bakedTrajectory.getVelocity(elapsedTime, values);
+			return createState(values);
+		}
+		if (movements.size() == 0) throw new RuntimeException("Tried to call getVelocity() with an empty Movements list");
+		return (T) movements.get(getMovementIndex(elapsedTime)).getVelocity(elapsedTime);
+	}
+
+	/**
+	 * Writes the RobotState at the given elapsedTime into the given buffer without allocating.
+	 * @param elapsedTime
+	 * @param out buffer of at least movementType.dimension values.
+	 */
+	public void getState(double elapsedTime, double[] out) {
+		if (isFinished(elapsedTime)) {
+			MotionSample end = getFinalSample();
+			System.arraycopy(end.position, 0, out, 0, end.position.length);
+			return;
+		}
+		if (bakedTrajectory != null) {
+			bakedTrajectory.getState(elapsedTime, out);
+			return;
+		}
 		if (movements.size() == 0) throw new RuntimeException("Tried to call getState() with an empty Movements list");
+		movements.get(getMovementIndex(elapsedTime)).getState(elapsedTime, out);
+	}
 
-		// get index of the movement at targetTime
-		int index = 0;
-		while (index+1 < movements.size() && elapsedTime >= movements.get(index+1).getStartTime()) {
-			index++;
+	/**
+	 * Writes the velocity RobotState at the given elapsedTime into the given buffer without allocating.
+	 * @param elapsedTime
+	 * @param out buffer of at least movementType.dimension values.
+	 */
+	public void getVelocity(double elapsedTime, double[] out) {
+		if (isFinished(elapsedTime)) {
+			MotionSample end = getFinalSample();
+			System.arraycopy(end.velocity, 0, out, 0, end.velocity.length);
+			return;
+		}
+		if (bakedTrajectory != null) {
+			bakedTrajectory.getVelocity(elapsedTime, out);
+			return;
 		}
+		if (movements.size() == 0) throw new RuntimeException("Tried to call getVelocity() with an empty Movements list");
+		movements.get(getMovementIndex(elapsedTime)).getVelocity(elapsedTime, out);
+	}
 
-		return (T) movements.get(index).getVelocity(elapsedTime);
+	/**
+	 * Writes the position, velocity, and acceleration at the given elapsedTime into the given sample in one pass.
+	 * @param elapsedTime
+	 * @param out
+	 */
+	public void sample(double elapsedTime, MotionSample out) {
+		if (isFinished(elapsedTime)) {
+			out.set(getFinalSample());
+			return;
+		}
+		if (bakedTrajectory != null) {
+			bakedTrajectory.sample(elapsedTime, out);
+			return;
+		}
+		if (movements.size() == 0) throw new RuntimeException("Tried to call sample() with an empty Movements list");
+		movements.get(getMovementIndex(elapsedTime)).sample(elapsedTime, out);
+	}
+
+	/**
+	 * Returns the position, velocity, and acceleration at the given elapsedTime.
+	 * @param elapsedTime
+	 * @return a new MotionSample.
+	 */
+	public MotionSample sample(double elapsedTime) {
+		MotionSample sample = new MotionSample(movementType);
+		sample(elapsedTime, sample);
+		return sample;
+	}
+
+	/**
+	 * @param elapsedTime
+	 * @return whether this Plan has finished executing at the given elapsedTime.
+	 */
+	public boolean isFinished(double elapsedTime) {
+		return elapsedTime >= getDuration() && (bakedTrajectory != null || movements.size() > 0);
+	}
+
+	/**
+	 * @return whether this Plan has finished executing at the current targetTime.
+	 */
+	public boolean isFinished() {
+		return isFinished(targetTime);
+	}
+
+	/**
+	 * Returns the sample at the end of this Plan, evaluating the Movements or BakedTrajectory only on the first call.
+	 * The acceleration is zero, since the final state is held from then on.
+	 * @return the final sample, which must not be modified.
+	 */
+	private MotionSample getFinalSample() {
+		if (finalSample == null) {
+			double duration = getDuration();
+			MotionSample sample = new MotionSample(movementType);
+			if (bakedTrajectory != null) {
+				bakedTrajectory.sample(duration, sample);
+			} else {
+				movements.get(getMovementIndex(duration)).sample(duration, sample);
+			}
+			Arrays.fill(sample.acceleration, 0);
+			finalSample = sample;
+		}
+		return finalSample;
+	}
+
+	/**
+	 * Returns the index of the Movement that is active at the given elapsedTime.
+	 * @param elapsedTime
+	 * @return the index of the last Movement starting at or before elapsedTime, or 0 if none has started.
+	 */
+	private int getMovementIndex(double elapsedTime) {
+		return cursor.search(startTimes, elapsedTime);
+	}
+
+	/**
+	 * Adds the MovementType and the content of every Movement in this Plan to the given hash.
+	 * @param hash
+	 */
+	public void hashContent(ContentHash hash) {
+		hash.add(movementType.name());
+		hash.add((long) movements.size());
+		for (Movement movement : movements) {
+			movement.hashContent(hash);
+		}
 	}
 
 	/**
 	 * @return the minimum duration needed to execute all Movements within this Plan
 	 */
 	public double getDuration() {
-		if (movements.size() == 0) return 0;
+		if (movements.size() == 0) return bakedTrajectory != null ? bakedTrajectory.getDuration() : 0;
 		return movements.get(movements.size()-1).getEndTime();
 	}
 
@@ -14,5 +14,11 @@ public abstract class RobotState {
 	 * @return a String representing this RobotState class.
 	 */
 	public abstract String getDisplayName();
+
+	/**
+	 * Writes the variables of this RobotState into the given buffer.
+	 * @param out buffer of at least MovementType.dimension values.
+	 */
+	public abstract void copyTo(double[] out);
 	
 }
@@ -1,9 +1,12 @@
 package org.firstinspires.ftc.teamcode.synchropather.systems.rotation;
 
 
-import org.firstinspires.ftc.teamcode.synchropather.DriveConstants;
 import org.firstinspires.ftc.teamcode.synchropather.systems.MovementType;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.ContentHash;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.KinematicConstraints;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.MotionSample;
 import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.TimeSpan;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.calculators.SCurveDisplacementCalculator;
 import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.calculators.StretchedDisplacementCalculator;
 import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.superclasses.Movement;
 
@@ -12,9 +15,11 @@ import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.superclasse
  */
 public class LinearRotation extends Movement {
 	
-	private double distance, minDuration;
+	private double distance, minDuration, sign;
 	private RotationState start, end;
 	private StretchedDisplacementCalculator calculator;
+	private final boolean jerkLimited;
+	private final KinematicConstraints constraints;
 
 	/**
 	 * Creates a new LinearRotation object with a given start and end RotationState allotted for the given TimeSpan.
@@ -23,9 +28,34 @@ public class LinearRotation extends Movement {
 	 * @param end
 	 */
 	public LinearRotation(TimeSpan timeSpan, RotationState start, RotationState end) {
+		this(timeSpan, start, end, false);
+	}
+
+	/**
+	 * Creates a new LinearRotation object with a given start and end RotationState allotted for the given TimeSpan.
+	 * @param timeSpan
+	 * @param start
+	 * @param end
+	 * @param jerkLimited if true, follows a jerk-limited S-curve profile instead of a trapezoidal one.
+	 */
+	public LinearRotation(TimeSpan timeSpan, RotationState start, RotationState end, boolean jerkLimited) {
+		this(timeSpan, start, end, jerkLimited, KinematicConstraints.getRotationDefaults());
+	}
+
+	/**
+	 * Creates a new LinearRotation object with a given start and end RotationState allotted for the given TimeSpan.
+	 * @param timeSpan
+	 * @param start
+	 * @param end
+	 * @param jerkLimited if true, follows a jerk-limited S-curve profile instead of a trapezoidal one.
+	 * @param constraints angular kinematic limits used instead of the DriveConstants defaults.
+	 */
+	public LinearRotation(TimeSpan timeSpan, RotationState start, RotationState end, boolean jerkLimited, KinematicConstraints constraints) {
 		super(timeSpan, MovementType.ROTATION);
 		this.start = start;
 		this.end = end;
+		this.jerkLimited = jerkLimited;
+		this.constraints = constraints;
 		init(false, -1);
 	}
 
@@ -36,9 +66,34 @@ public class LinearRotation extends Movement {
 	 * @param end
 	 */
 	public LinearRotation(double startTime, RotationState start, RotationState end) {
+		this(startTime, start, end, false);
+	}
+
+	/**
+	 * Creates a new LinearRotation object with a given start and end RotationState at the given startTime.
+	 * @param startTime
+	 * @param start
+	 * @param end
+	 * @param jerkLimited if true, follows a jerk-limited S-curve profile instead of a trapezoidal one.
+	 */
+	public LinearRotation(double startTime, RotationState start, RotationState end, boolean jerkLimited) {
+		this(startTime, start, end, jerkLimited, KinematicConstraints.getRotationDefaults());
+	}
+
+	/**
+	 * Creates a new LinearRotation object with a given start and end RotationState at the given startTime.
+	 * @param startTime
+	 * @param start
+	 * @param end
+	 * @param jerkLimited if true, follows a jerk-limited S-curve profile instead of a trapezoidal one.
+	 * @param constraints angular kinematic limits used instead of the DriveConstants defaults.
+	 */
+	public LinearRotation(double startTime, RotationState start, RotationState end, boolean jerkLimited, KinematicConstraints constraints) {
 		super(MovementType.ROTATION);
 		this.start = start;
 		this.end = end;
+		this.jerkLimited = jerkLimited;
+		this.constraints = constraints;
 		init(true, startTime);
 	}
 
@@ -48,30 +103,154 @@ public class LinearRotation extends Movement {
 		return minDuration;
 	}
 
+	/**
+	 * @return whether this LinearRotation follows a trapezoidal profile, which can start and end at nonzero speed.
+	 */
+	@Override
+	public boolean supportsBoundarySpeeds() {
+		return !jerkLimited;
+	}
+
+	/**
+	 * Sets the unsigned speeds at the start and end of this Movement and fits it to the new minimum duration from the same start time.
+	 * @param startSpeed
+	 * @param endSpeed
+	 */
+	@Override
+	public void setBoundarySpeeds(double startSpeed, double endSpeed) {
+		calculator.setBoundaryVelocities(startSpeed, endSpeed);
+		minDuration = calculator.getMinDuration();
+		super.setTimeSpan(calculator.getTimeSpan());
+	}
+
+	@Override
+	public double getStartSpeed() {
+		return calculator.getStartVelocity();
+	}
+
+	@Override
+	public double getEndSpeed() {
+		return calculator.getEndVelocity();
+	}
+
+	@Override
+	public double getMaxEndSpeed(double startSpeed) {
+		return calculator.getMaxEndVelocity(startSpeed);
+	}
+
+	@Override
+	public double getMaxStartSpeed(double endSpeed) {
+		return calculator.getMaxStartVelocity(endSpeed);
+	}
+
+	@Override
+	public double getMaxSpeed() {
+		return constraints.getMaxVelocity();
+	}
+
+	@Override
+	public double getMaxAcceleration() {
+		return constraints.getMaxAcceleration();
+	}
+
+	@Override
+	public double getMaxDeceleration() {
+		return constraints.getMaxDeceleration();
+	}
+
+	/**
+	 * @return the angular kinematic limits this Movement is profiled with.
+	 */
+	public KinematicConstraints getConstraints() {
+		return constraints;
+	}
+
+	/**
+	 * Writes the unit direction of motion at the start of this Movement into the given buffer.
+	 * @param out
+	 */
+	@Override
+	public void getStartDirection(double[] out) {
+		out[0] = sign;
+	}
+
+	/**
+	 * Writes the unit direction of motion at the end of this Movement into the given buffer.
+	 * @param out
+	 */
+	@Override
+	public void getEndDirection(double[] out) {
+		out[0] = sign;
+	}
+
+	/**
+	 * Sets the allotted timeSpan of this Movement and stretches its velocity curve to fit.
+	 */
+	@Override
+	public void setTimeSpan(TimeSpan timeSpan) {
+		calculator.setTimeSpan(timeSpan);
+		super.setTimeSpan(calculator.getTimeSpan());
+	}
+
 	/**
 	 * @return the indicated RotationState.
 	 */
 	@Override
 	public RotationState getState(double elapsedTime) {
+		double[] out = new double[1];
+		getState(elapsedTime, out);
+		return new RotationState(out[0]);
+	}
+
+	/**
+	 * @return the indicated velocity RotationState.
+	 */
+	@Override
+	public RotationState getVelocity(double elapsedTime) {
+		double[] out = new double[1];
+		getVelocity(elapsedTime, out);
+		return new RotationState(out[0]);
+	}
+
+	/**
+	 * Writes the heading at the given elapsed time into the given buffer.
+	 * @param elapsedTime
+	 * @param out
+	 */
+	@Override
+	public void getState(double elapsedTime, double[] out) {
 		double t = distance!=0 ? calculator.getDisplacement(elapsedTime) / distance : 0;
 
 		double q0 = 1 - t;
 		double q1 = t;
 
 		// linear interpolation
-		return start.times(q0).plus(end.times(q1));
+		out[0] = start.getHeading()*q0 + end.getHeading()*q1;
 	}
 
 	/**
-	 * @return the indicated velocity RotationState.
+	 * Writes the angular velocity at the given elapsed time into the given buffer.
+	 * @param elapsedTime
+	 * @param out
 	 */
 	@Override
-	public RotationState getVelocity(double elapsedTime) {
-		double sign = end.minus(start).sign();
+	public void getVelocity(double elapsedTime, double[] out) {
 		double speed = calculator.getVelocity(elapsedTime);
-		
+
 		// scaled velocity vector
-		return new RotationState(sign * speed);
+		out[0] = sign * speed;
+	}
+
+	/**
+	 * Writes the heading, angular velocity, and angular acceleration at the given elapsed time into the given sample.
+	 * @param elapsedTime
+	 * @param out
+	 */
+	@Override
+	public void sample(double elapsedTime, MotionSample out) {
+		getState(elapsedTime, out.position);
+		out.velocity[0] = sign * calculator.getVelocity(elapsedTime);
+		out.acceleration[0] = sign * calculator.getAcceleration(elapsedTime);
 	}
 
 	/**
@@ -90,6 +269,17 @@ public class LinearRotation extends Movement {
 		return end;
 	}
 
+	/**
+	 * Adds the TimeSpan, start and end states, profile shape, and constraints of this LinearRotation to the given hash.
+	 * @param hash
+	 */
+	@Override
+	public void hashContent(ContentHash hash) {
+		super.hashContent(hash);
+		hash.add(jerkLimited ? 1L : 0L);
+		constraints.hashContent(hash);
+	}
+
 	/**
 	 * @return "LinearRotation"
 	 */
@@ -103,17 +293,24 @@ public class LinearRotation extends Movement {
 	 */
 	private void init(boolean startTimeConstructor, double startTime) {
 		distance = end.minus(start).abs();
+		sign = end.minus(start).sign();
 
-		double MAV = DriveConstants.MAX_ANGULAR_VELOCITY;
-		double MAA = DriveConstants.MAX_ANGULAR_ACCELERATION;
+		double MAV = constraints.getMaxVelocity();
+		double MAA = constraints.getMaxAcceleration();
+		double MAD = constraints.getMaxDeceleration();
+		double MAJ = constraints.getMaxJerk();
 
 		if (startTimeConstructor) {
-			minDuration = StretchedDisplacementCalculator.findMinDuration(distance, MAV, MAA);
+			minDuration = jerkLimited
+					? SCurveDisplacementCalculator.findMinDuration(distance, MAV, MAA, MAD, MAJ)
+					: StretchedDisplacementCalculator.findMinDuration(distance, MAV, MAA, MAD, 0, 0);
 			timeSpan = new TimeSpan(startTime, startTime + minDuration);
 		}
 		
 		// create calculator object
-		calculator = new StretchedDisplacementCalculator(distance, timeSpan, MAV, MAA);
+		calculator = jerkLimited
+				? new SCurveDisplacementCalculator(distance, timeSpan, MAV, MAA, MAD, MAJ)
+				: new StretchedDisplacementCalculator(distance, timeSpan, MAV, MAA, MAD);
 		
 		minDuration = calculator.getMinDuration();
 	}
@@ -1,17 +1,18 @@
 package org.firstinspires.ftc.teamcode.synchropather.systems.rotation;
 
 import com.arcrobotics.ftclib.geometry.Pose2d;
-import com.qualcomm.robotcore.util.ElapsedTime;
 
 import org.firstinspires.ftc.teamcode.subsystems.DriveSubsystem;
 import org.firstinspires.ftc.teamcode.subsystems.OdometrySubsystem;
+import org.firstinspires.ftc.teamcode.synchropather.DriveConstants;
 import org.firstinspires.ftc.teamcode.synchropather.systems.MovementType;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.BakedTrajectory;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.ChassisCommand;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.SampleBuffer;
 import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.superclasses.Movement;
 import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.superclasses.Plan;
 import org.firstinspires.ftc.teamcode.synchropather.systems.translation.TranslationState;
 
-import java.util.ArrayList;
-
 /**
  * Object containing a sequence of Movements for rotational drive.
  */
@@ -25,6 +26,22 @@ public class RotationPlan extends Plan<RotationState> {
 		super(MovementType.ROTATION, movements);
 	}
 
+	/**
+	 * Creates a new RotationPlan object that follows the given precomputed trajectory.
+	 * @param bakedTrajectory
+	 */
+	public RotationPlan(BakedTrajectory bakedTrajectory) {
+		super(bakedTrajectory);
+	}
+
+	/**
+	 * @return a RotationState with the heading taken from the given values.
+	 */
+	@Override
+	protected RotationState createState(double[] values) {
+		return new RotationState(values[0]);
+	}
+
 	/**
 	 * Controls the rotation output of the robot to the RotationState at the elapsedTime.
 	 */
@@ -33,10 +50,29 @@ public class RotationPlan extends Plan<RotationState> {
 	public static double kD = 1; // to be tuned
 	public static double lastErrorTh = 0;
 
-	public static ElapsedTime tt;
-	public ArrayList<Double> times;
+	/**
+	 * The recent heading errors, differentiated for the D term.
+	 */
+	private final SampleBuffer errorsTh = new SampleBuffer(DriveConstants.DERIVATIVE_SAMPLES);
+
+	/**
+	 * Reused by loop() when this Plan drives the chassis on its own.
+	 */
+	private final ChassisCommand command = new ChassisCommand();
+
 	@Override
 	public void loop() {
+		command.clear();
+		loop(command);
+		DriveSubsystem.drive(command);
+	}
+
+	/**
+	 * Adds the rotation output of the robot to the RotationState at the elapsedTime to the given command.
+	 * @param command
+	 */
+	@Override
+	public void loop(ChassisCommand command) {
 		// TODO Auto-generated method stub
 		// brute force PID to target
 
@@ -45,26 +81,16 @@ public class RotationPlan extends Plan<RotationState> {
 
 		Pose2d currentPos = OdometrySubsystem.getPose();
 		double theta = currentPos.getHeading();
-		double errorTh = theta - rotState.getHeading();
-
-
-		while (times.size() < 5) {
-			times.add((double) 0);
-		}
-		times.add(tt.seconds());
-		while (times.size() > 5) {
-			times.remove(0);
-		}
-		//double dx = (errorX-lastErrorX)/(tt.seconds()-lastTime);
-		//double dy = (errorY-lastErrorY)/(tt.seconds()-lastTime);
-
-		// five point stencil
-		double dErrorTh = (0 - errorTh * times.get(times.size()-1)+ 8*errorTh*(times.get(times.size()-2)) - 8*errorTh*(times.get(times.size()-4)) + errorTh * times.get(times.size() - 5) )
-				/ (12 * (times.get(times.size()-1) - times.get(times.size()-2)) );
+		// shortest signed angle from the current heading to the target
+		double errorTh = Math.IEEEremainder(rotState.getHeading() - theta, 2*Math.PI);
 
 
+		// derivative through the recent errors, which stays exact for uneven loop times
+		double time = System.nanoTime() * 1e-9;
+		errorsTh.add(time, errorTh);
+		double dErrorTh = errorsTh.getDerivative();
 
-		DriveSubsystem.driveFieldCentric(0,0, kP * errorTh + kD * dErrorTh);
+		command.addTurn(kP * errorTh + kD * dErrorTh);
 		lastErrorTh = errorTh;
 	}
 
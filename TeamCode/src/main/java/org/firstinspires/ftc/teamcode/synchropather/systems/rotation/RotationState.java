@@ -76,6 +76,15 @@ public class RotationState extends RobotState {
 		return new RotationState(heading * factor);
 	}
 
+	/**
+	 * Writes the heading into the first value of the given buffer.
+	 * @param out
+	 */
+	@Override
+	public void copyTo(double[] out) {
+		out[0] = heading;
+	}
+
 	@Override
 	/**
 	 * @return a String containing the heading in radians (not normalized).
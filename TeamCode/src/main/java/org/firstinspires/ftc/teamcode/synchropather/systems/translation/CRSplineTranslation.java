@@ -3,10 +3,18 @@ package org.firstinspires.ftc.teamcode.synchropather.systems.translation;
 
 import org.firstinspires.ftc.teamcode.synchropather.DriveConstants;
 import org.firstinspires.ftc.teamcode.synchropather.systems.MovementType;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.ContentHash;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.KinematicConstraints;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.MotionSample;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.SearchCursor;
 import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.TimeSpan;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.calculators.CurvatureLimitedDisplacementCalculator;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.calculators.SCurveDisplacementCalculator;
 import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.calculators.StretchedDisplacementCalculator;
 import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.superclasses.Movement;
 
+import java.util.ArrayList;
+
 /**
  * Movement for planning a Catmull-Rom spline translation.
  */
@@ -14,8 +22,13 @@ public class CRSplineTranslation extends Movement {
 	
 	private double distance, minDuration;
 	private double[] partialProps;
+	private double[] coefficients;
+	private double[][] segmentParams, segmentArcLengths;
 	private final TranslationState[] anchors;
+	private final SearchCursor segmentCursor = new SearchCursor(), knotCursor = new SearchCursor();
 	private StretchedDisplacementCalculator calculator;
+	private final boolean jerkLimited;
+	private final KinematicConstraints constraints;
 
 	/**
 	 * Creates a new CRSplineTranslation object with the given anchor TranslationStates allotted for the given TimeSpan.
@@ -23,8 +36,31 @@ public class CRSplineTranslation extends Movement {
 	 * @param anchors
 	 */
 	public CRSplineTranslation(TimeSpan timeSpan, TranslationState... anchors) {
+		this(timeSpan, false, anchors);
+	}
+
+	/**
+	 * Creates a new CRSplineTranslation object with the given anchor TranslationStates allotted for the given TimeSpan.
+	 * @param timeSpan
+	 * @param jerkLimited if true, follows a jerk-limited S-curve profile instead of a trapezoidal one.
+	 * @param anchors
+	 */
+	public CRSplineTranslation(TimeSpan timeSpan, boolean jerkLimited, TranslationState... anchors) {
+		this(timeSpan, jerkLimited, KinematicConstraints.getTranslationDefaults(), anchors);
+	}
+
+	/**
+	 * Creates a new CRSplineTranslation object with the given anchor TranslationStates allotted for the given TimeSpan.
+	 * @param timeSpan
+	 * @param jerkLimited if true, follows a jerk-limited S-curve profile instead of a trapezoidal one.
+	 * @param constraints kinematic limits and SpeedZones used instead of the DriveConstants defaults.
+	 * @param anchors
+	 */
+	public CRSplineTranslation(TimeSpan timeSpan, boolean jerkLimited, KinematicConstraints constraints, TranslationState... anchors) {
 		super(timeSpan, MovementType.TRANSLATION);
 		this.anchors = anchors;
+		this.jerkLimited = jerkLimited;
+		this.constraints = constraints;
 		init(false, -1);
 	}
 
@@ -33,8 +69,31 @@ public class CRSplineTranslation extends Movement {
 	 * @param startTime
 	 */
 	public CRSplineTranslation(double startTime, TranslationState... anchors) {
+		this(startTime, false, anchors);
+	}
+
+	/**
+	 * Creates a new CRSplineTranslation object with the given anchor TranslationStates at the given startTime.
+	 * @param startTime
+	 * @param jerkLimited if true, follows a jerk-limited S-curve profile instead of a trapezoidal one.
+	 * @param anchors
+	 */
+	public CRSplineTranslation(double startTime, boolean jerkLimited, TranslationState... anchors) {
+		this(startTime, jerkLimited, KinematicConstraints.getTranslationDefaults(), anchors);
+	}
+
+	/**
+	 * Creates a new CRSplineTranslation object with the given anchor TranslationStates at the given startTime.
+	 * @param startTime
+	 * @param jerkLimited if true, follows a jerk-limited S-curve profile instead of a trapezoidal one.
+	 * @param constraints kinematic limits and SpeedZones used instead of the DriveConstants defaults.
+	 * @param anchors
+	 */
+	public CRSplineTranslation(double startTime, boolean jerkLimited, KinematicConstraints constraints, TranslationState... anchors) {
 		super(MovementType.TRANSLATION);
 		this.anchors = anchors;
+		this.jerkLimited = jerkLimited;
+		this.constraints = constraints;
 		init(true, startTime);
 	}
 
@@ -44,25 +103,200 @@ public class CRSplineTranslation extends Movement {
 		return minDuration;
 	}
 
+	/**
+	 * @return whether this CRSplineTranslation follows a trapezoidal profile, which can start and end at nonzero speed.
+	 */
+	@Override
+	public boolean supportsBoundarySpeeds() {
+		return !jerkLimited;
+	}
+
+	/**
+	 * Sets the unsigned speeds at the start and end of this Movement and fits it to the new minimum duration from the same start time.
+	 * @param startSpeed
+	 * @param endSpeed
+	 */
+	@Override
+	public void setBoundarySpeeds(double startSpeed, double endSpeed) {
+		calculator.setBoundaryVelocities(startSpeed, endSpeed);
+		minDuration = calculator.getMinDuration();
+		super.setTimeSpan(calculator.getTimeSpan());
+	}
+
+	@Override
+	public double getStartSpeed() {
+		return calculator.getStartVelocity();
+	}
+
+	@Override
+	public double getEndSpeed() {
+		return calculator.getEndVelocity();
+	}
+
+	@Override
+	public double getMaxEndSpeed(double startSpeed) {
+		return calculator.getMaxEndVelocity(startSpeed);
+	}
+
+	@Override
+	public double getMaxStartSpeed(double endSpeed) {
+		return calculator.getMaxStartVelocity(endSpeed);
+	}
+
+	@Override
+	public double getMaxSpeed() {
+		return constraints.getMaxVelocity();
+	}
+
+	@Override
+	public double getMaxAcceleration() {
+		return constraints.getMaxAcceleration();
+	}
+
+	@Override
+	public double getMaxDeceleration() {
+		return constraints.getMaxDeceleration();
+	}
+
+	/**
+	 * @return the kinematic limits this Movement is profiled with.
+	 */
+	public KinematicConstraints getConstraints() {
+		return constraints;
+	}
+
+	/**
+	 * Writes the unit direction of motion at the start of this Movement into the given buffer.
+	 * @param out
+	 */
+	@Override
+	public void getStartDirection(double[] out) {
+		if (distance == 0) {
+			out[0] = out[1] = 0;
+			return;
+		}
+		getDerivative(0, 0, out);
+		normalize(out);
+	}
+
+	/**
+	 * Writes the unit direction of motion at the end of this Movement into the given buffer.
+	 * @param out
+	 */
+	@Override
+	public void getEndDirection(double[] out) {
+		if (distance == 0) {
+			out[0] = out[1] = 0;
+			return;
+		}
+		getDerivative(getLength()-2, 1, out);
+		normalize(out);
+	}
+
+	/**
+	 * Sets the allotted timeSpan of this Movement and stretches its velocity curve to fit.
+	 */
+	@Override
+	public void setTimeSpan(TimeSpan timeSpan) {
+		calculator.setTimeSpan(timeSpan);
+		super.setTimeSpan(calculator.getTimeSpan());
+	}
+
 	@Override
 	public TranslationState getState(double elapsedTime) {
-		int n = getLocalSegment(elapsedTime);
-		double p_r = getLocalProportion(elapsedTime);
-		
-		return getState(n, p_r);
+		double[] out = new double[2];
+		getState(elapsedTime, out);
+		return new TranslationState(out[0], out[1]);
 	}
 
 	@Override
 	public TranslationState getVelocity(double elapsedTime) {
-		// get theta
-		int n = getLocalSegment(elapsedTime);
-		double p_r = getLocalProportion(elapsedTime);
-		TranslationState derivative = getDerivative(n, p_r);
+		double[] out = new double[2];
+		getVelocity(elapsedTime, out);
+		return new TranslationState(out[0], out[1]);
+	}
+
+	/**
+	 * Writes the x and y coordinates at the given elapsed time into the given buffer.
+	 * @param elapsedTime
+	 * @param out
+	 */
+	@Override
+	public void getState(double elapsedTime, double[] out) {
+		double dx = calculator.getDisplacement(elapsedTime);
+		int n = getSegmentAt(dx);
+		double p_r = getSegmentParameter(n, dx - partialProps[n] * distance);
+
+		getState(n, p_r, out);
+	}
+
+	/**
+	 * Writes the x and y velocities at the given elapsed time into the given buffer.
+	 * @param elapsedTime
+	 * @param out
+	 */
+	@Override
+	public void getVelocity(double elapsedTime, double[] out) {
+		// get direction
+		double dx = calculator.getDisplacement(elapsedTime);
+		int n = getSegmentAt(dx);
+		double p_r = getSegmentParameter(n, dx - partialProps[n] * distance);
+		getDerivative(n, p_r, out);
 
 		double speed = calculator.getVelocity(elapsedTime);
-		double theta = Math.atan2(derivative.getY(), derivative.getX());
+		double norm = Math.hypot(out[0], out[1]);
 
-		return new TranslationState(speed, theta, true);
+		if (norm == 0) {
+			// undefined direction, same as theta = atan2(0,0) = 0
+			out[0] = speed;
+			out[1] = 0;
+		} else {
+			out[0] *= speed / norm;
+			out[1] *= speed / norm;
+		}
+	}
+
+	/**
+	 * Writes the position, velocity, and acceleration at the given elapsed time into the given sample, locating the spline parameter only once.
+	 * @param elapsedTime
+	 * @param out
+	 */
+	@Override
+	public void sample(double elapsedTime, MotionSample out) {
+		double dx = calculator.getDisplacement(elapsedTime);
+		double speed = calculator.getVelocity(elapsedTime);
+		double acceleration = calculator.getAcceleration(elapsedTime);
+
+		int n = getSegmentAt(dx);
+		double p_r = getSegmentParameter(n, dx - partialProps[n] * distance);
+
+		getState(n, p_r, out.position);
+		getDerivative(n, p_r, out.velocity);
+		getSecondDerivative(n, p_r, out.acceleration);
+
+		double[] v = out.velocity, a = out.acceleration;
+		double norm = Math.hypot(v[0], v[1]);
+		if (norm == 0) {
+			// undefined direction, same as theta = atan2(0,0) = 0
+			v[0] = speed;
+			v[1] = 0;
+			a[0] = acceleration;
+			a[1] = 0;
+			return;
+		}
+
+		// unit tangent
+		double tx = v[0] / norm, ty = v[1] / norm;
+
+		// curvature vector d^2P/ds^2 = (P'' - (P''.T)T) / |P'|^2
+		double along = a[0]*tx + a[1]*ty;
+		double kx = (a[0] - along*tx) / (norm*norm);
+		double ky = (a[1] - along*ty) / (norm*norm);
+
+		v[0] = speed * tx;
+		v[1] = speed * ty;
+		a[0] = acceleration * tx + speed * speed * kx;
+		a[1] = acceleration * ty + speed * speed * ky;
 	}
 
 	/**
@@ -89,6 +323,21 @@ public class CRSplineTranslation extends Movement {
 		return "CRSplineTranslation";
 	}
 
+	/**
+	 * Adds the TimeSpan, profile shape, constraints, and every anchor of this CRSpline to the given hash.
+	 * @param hash
+	 */
+	@Override
+	public void hashContent(ContentHash hash) {
+		super.hashContent(hash);
+		hash.add(jerkLimited ? 1L : 0L);
+		constraints.hashContent(hash);
+		hash.add((long) getLength());
+		for (TranslationState anchor : anchors) {
+			hashState(hash, anchor);
+		}
+	}
+
 	/**
 	 * @return the number of anchor TranslationStates in this CRSpline.
 	 */
@@ -110,27 +359,23 @@ public class CRSplineTranslation extends Movement {
 	 * @return the indicated TranslationState.
 	 */
 	public TranslationState getState(int segment, double t) {
-		if (segment < 0 || getLength()-2 < segment)
-			throw new RuntimeException(String.format("Segment index %s outside of [%s,%s]", segment, 0, getLength()-2));
+		double[] out = new double[2];
+		getState(segment, t, out);
+		return new TranslationState(out[0], out[1]);
+	}
 
-		TranslationState p0 = anchors[Math.max(0, segment-1)];
-		TranslationState p1 = anchors[segment];
-		TranslationState p2 = anchors[segment + 1];
-		TranslationState p3 = anchors[Math.min(getLength()-1, segment+2)];
-		
-		double tt = t*t;
-		double ttt = tt*t;
-
-		double q0 = -ttt + 2*tt - t;
-		double q1 = 3*ttt - 5*tt + 2;
-		double q2 = -3*ttt + 4*tt + t;
-		double q3 = ttt - tt;
-		
-		return (p0.times(q0)) .plus 
-				(p1.times(q1)) .plus 
-				(p2.times(q2)) .plus 
-				(p3.times(q3)) 
-				.times(0.5);
+	/**
+	 * Writes the x and y coordinates at parameter 0<=t<=1 of the given spline segment into the given buffer.
+	 * @param segment
+	 * @param t
+	 * @param out
+	 */
+	public void getState(int segment, double t, double[] out) {
+		int i = getCoefficientIndex(segment);
+
+		// Horner evaluation of a*t^3 + b*t^2 + c*t + d
+		out[0] = ((coefficients[i]*t + coefficients[i+1])*t + coefficients[i+2])*t + coefficients[i+3];
+		out[1] = ((coefficients[i+4]*t + coefficients[i+5])*t + coefficients[i+6])*t + coefficients[i+7];
 	}
 	
 	/**
@@ -140,26 +385,109 @@ public class CRSplineTranslation extends Movement {
 	 * @return the TranslationState representation of the derivative within the segment.
 	 */
 	public TranslationState getDerivative(int segment, double t) {
+		double[] out = new double[2];
+		getDerivative(segment, t, out);
+		return new TranslationState(out[0], out[1]);
+	}
+
+	/**
+	 * Writes the derivative at parameter t (between 0 and 1) of the given spline segment into the given buffer.
+	 * @param segment
+	 * @param t
+	 * @param out
+	 */
+	public void getDerivative(int segment, double t, double[] out) {
+		int i = getCoefficientIndex(segment);
+
+		// Horner evaluation of 3a*t^2 + 2b*t + c
+		out[0] = (3*coefficients[i]*t + 2*coefficients[i+1])*t + coefficients[i+2];
+		out[1] = (3*coefficients[i+4]*t + 2*coefficients[i+5])*t + coefficients[i+6];
+	}
+
+	/**
+	 * Gets the second derivative at parameter t (between 0 and 1) of the given spline segment.
+	 * @param segment
+	 * @param t
+	 * @return the TranslationState representation of the second derivative within the segment.
+	 */
+	public TranslationState getSecondDerivative(int segment, double t) {
+		double[] out = new double[2];
+		getSecondDerivative(segment, t, out);
+		return new TranslationState(out[0], out[1]);
+	}
+
+	/**
+	 * Writes the second derivative at parameter t (between 0 and 1) of the given spline segment into the given buffer.
+	 * @param segment
+	 * @param t
+	 * @param out
+	 */
+	public void getSecondDerivative(int segment, double t, double[] out) {
+		int i = getCoefficientIndex(segment);
+
+		// 6a*t + 2b
+		out[0] = 6*coefficients[i]*t + 2*coefficients[i+1];
+		out[1] = 6*coefficients[i+4]*t + 2*coefficients[i+5];
+	}
+
+	/**
+	 * Calculates the unsigned curvature at parameter t (between 0 and 1) of the given spline segment.
+	 * @param segment
+	 * @param t
+	 * @return the curvature in 1/in, or 0 where the direction is undefined.
+	 */
+	public double getCurvature(int segment, double t) {
+		int i = getCoefficientIndex(segment);
+		double dx = (3*coefficients[i]*t + 2*coefficients[i+1])*t + coefficients[i+2];
+		double dy = (3*coefficients[i+4]*t + 2*coefficients[i+5])*t + coefficients[i+6];
+		double ddx = 6*coefficients[i]*t + 2*coefficients[i+1];
+		double ddy = 6*coefficients[i+4]*t + 2*coefficients[i+5];
+
+		double norm = Math.hypot(dx, dy);
+		if (norm == 0) return 0;
+		return Math.abs(dx*ddy - dy*ddx) / (norm*norm*norm);
+	}
+
+	/**
+	 * @param segment
+	 * @return the index of the first power basis coefficient of the given spline segment.
+	 */
+	private int getCoefficientIndex(int segment) {
 		if (segment < 0 || getLength()-2 < segment)
 			throw new RuntimeException(String.format("Segment index %s outside of [%s,%s]", segment, 0, getLength()-2));
+		return 8 * segment;
+	}
+
+	/**
+	 * Converts the Catmull-Rom basis of every segment into power basis coefficients (ax,bx,cx,dx,ay,by,cy,dy).
+	 */
+	private void initCoefficients() {
+		coefficients = new double[8 * Math.max(0, getLength()-1)];
+		for (int segment = 0; segment < getLength()-1; segment++) {
+			TranslationState p0 = anchors[Math.max(0, segment-1)];
+			TranslationState p1 = anchors[segment];
+			TranslationState p2 = anchors[segment + 1];
+			TranslationState p3 = anchors[Math.min(getLength()-1, segment+2)];
+
+			int i = 8 * segment;
+			setCoefficients(i, p0.getX(), p1.getX(), p2.getX(), p3.getX());
+			setCoefficients(i+4, p0.getY(), p1.getY(), p2.getY(), p3.getY());
+		}
+	}
 
-		TranslationState p0 = anchors[Math.max(0, segment-1)];
-		TranslationState p1 = anchors[segment];
-		TranslationState p2 = anchors[segment + 1];
-		TranslationState p3 = anchors[Math.min(getLength()-1, segment+2)];
-		
-		double tt = t*t;
-
-		double q0 = -3*tt + 4*t - 1;
-		double q1 = 9*tt - 10*t;
-		double q2 = -9*tt + 8*t + 1;
-		double q3 = 3*tt - 2*t;
-		
-		return (p0.times(q0)) .plus 
-				(p1.times(q1)) .plus 
-				(p2.times(q2)) .plus 
-				(p3.times(q3)) 
-				.times(0.5);
+	/**
+	 * Stores the power basis coefficients of one coordinate of a Catmull-Rom segment starting at the given index.
+	 * @param i
+	 * @param p0
+	 * @param p1
+	 * @param p2
+	 * @param p3
+	 */
+	private void setCoefficients(int i, double p0, double p1, double p2, double p3) {
+		coefficients[i] = 0.5 * (-p0 + 3*p1 - 3*p2 + p3);
+		coefficients[i+1] = 0.5 * (2*p0 - 5*p1 + 4*p2 - p3);
+		coefficients[i+2] = 0.5 * (-p0 + p2);
+		coefficients[i+3] = p1;
 	}
 	
 	/**
@@ -168,13 +496,7 @@ public class CRSplineTranslation extends Movement {
 	 * @return the index of the spline segment.
 	 */
 	public int getLocalSegment(double elapsedTime) {
-		double dx = calculator.getDisplacement(elapsedTime);
-		double p_x = distance!=0 ? dx / distance : 0;
-		
-		int n = 0;
-		while (n+1 < partialProps.length && p_x >= partialProps[n+1]) n++;
-		
-		return n;
+		return getSegmentAt(calculator.getDisplacement(elapsedTime));
 	}
 	
 	/**
@@ -184,67 +506,255 @@ public class CRSplineTranslation extends Movement {
 	 */
 	public double getLocalProportion(double elapsedTime) {
 		double dx = calculator.getDisplacement(elapsedTime);
-		int n = getLocalSegment(elapsedTime);
-		
-		double delta_t = DriveConstants.delta_t;
-		double p_r = 0;
-		double localDisplacement = 0;
-		TranslationState lastPose = getState(n,0);
-		while (localDisplacement < dx - partialProps[n] * distance) {
-			p_r += delta_t;
-			TranslationState currentPose = getState(n, p_r);
-			localDisplacement += Math.hypot(currentPose.getX()-lastPose.getX(), currentPose.getY()-lastPose.getY());
-			lastPose = currentPose;
-		}
-		
-		return p_r;
+		int n = getSegmentAt(dx);
+
+		double localDisplacement = dx - partialProps[n] * distance;
+		return getSegmentParameter(n, localDisplacement);
+	}
+
+	/**
+	 * Gets the index of the spline segment containing the given distance traveled along the spline.
+	 * @param displacement
+	 * @return the index of the spline segment.
+	 */
+	private int getSegmentAt(double displacement) {
+		double p_x = distance!=0 ? displacement / distance : 0;
+		return segmentCursor.search(partialProps, p_x);
+	}
+
+	/**
+	 * Looks up the parameter (between 0 and 1) at which the given arc length is reached within the given spline segment.
+	 * @param segment
+	 * @param arcLength distance traveled from the start of the segment, in inches.
+	 * @return the interpolated spline parameter.
+	 */
+	private double getSegmentParameter(int segment, double arcLength) {
+		double[] params = segmentParams[segment];
+		double[] lengths = segmentArcLengths[segment];
+		int last = lengths.length - 1;
+
+		if (arcLength <= 0) return 0;
+		if (arcLength >= lengths[last]) return 1;
+
+		// last knot at or before arcLength
+		int lo = knotCursor.search(lengths, arcLength);
+		int hi = lo + 1;
+
+		// linear interpolation between knots
+		double span = lengths[hi] - lengths[lo];
+		double ratio = span > 0 ? (arcLength - lengths[lo]) / span : 0;
+		return params[lo] + ratio * (params[hi] - params[lo]);
 	}
 	
+	/**
+	 * Builds the arc length table of the given segment by summing chords between samples spaced delta_t apart.
+	 * @param segment
+	 */
+	private void sumSegmentChords(int segment) {
+		int samples = (int) Math.ceil(1 / DriveConstants.delta_t);
+		double[] params = new double[samples + 1];
+		double[] arcLengths = new double[samples + 1];
+		TranslationState prevState = getState(segment, 0);
+		for (int k = 1; k <= samples; k++) {
+			// integrate distances over the spline parameter
+			params[k] = (double) k / samples;
+			TranslationState state = getState(segment, params[k]);
+			arcLengths[k] = arcLengths[k-1] + state.minus(prevState).hypot();
+			prevState = state;
+		}
+		segmentParams[segment] = params;
+		segmentArcLengths[segment] = arcLengths;
+	}
+
+	/**
+	 * Builds the arc length table of the given segment by integrating the speed |dP/dt| with adaptive Simpson quadrature.
+	 * Every accepted quadrature interval becomes a knot of the table, so knots are dense only where the speed varies.
+	 * @param segment
+	 */
+	private void integrateSegment(int segment) {
+		int intervals = DriveConstants.ARC_LENGTH_MIN_INTERVALS;
+		double tolerance = DriveConstants.ARC_LENGTH_TOLERANCE / intervals;
+
+		ArrayList<Double> params = new ArrayList<>();
+		ArrayList<Double> arcLengths = new ArrayList<>();
+		params.add(0d);
+		arcLengths.add(0d);
+
+		double fa = getSpeed(segment, 0);
+		for (int k = 0; k < intervals; k++) {
+			double a = (double) k / intervals, b = (double) (k+1) / intervals;
+			double fm = getSpeed(segment, (a+b)/2), fb = getSpeed(segment, b);
+			double whole = (b-a) / 6 * (fa + 4*fm + fb);
+			adaptiveSimpson(segment, a, b, fa, fm, fb, whole, tolerance, DriveConstants.ARC_LENGTH_MAX_DEPTH, params, arcLengths);
+			fa = fb;
+		}
+
+		segmentParams[segment] = toArray(params);
+		segmentArcLengths[segment] = toArray(arcLengths);
+	}
+
+	/**
+	 * Recursively integrates the speed of the given segment over [a,b], appending a table knot at the end of every accepted interval.
+	 * @param segment
+	 * @param a
+	 * @param b
+	 * @param fa speed at a
+	 * @param fm speed at the midpoint of a and b
+	 * @param fb speed at b
+	 * @param whole Simpson estimate over [a,b]
+	 * @param tolerance max absolute error allowed over [a,b]
+	 * @param depth remaining recursion depth
+	 * @param params knot parameters
+	 * @param arcLengths cumulative arc length at each knot
+	 */
+	private void adaptiveSimpson(int segment, double a, double b, double fa, double fm, double fb, double whole, double tolerance, int depth,
+								 ArrayList<Double> params, ArrayList<Double> arcLengths) {
+		double m = (a+b)/2;
+		double flm = getSpeed(segment, (a+m)/2), frm = getSpeed(segment, (m+b)/2);
+		double left = (m-a) / 6 * (fa + 4*flm + fm);
+		double right = (b-m) / 6 * (fm + 4*frm + fb);
+		double error = left + right - whole;
+
+		if (depth <= 0 || Math.abs(error) <= 15*tolerance) {
+			// accept both halves, with Richardson extrapolation split evenly between them
+			double base = arcLengths.get(arcLengths.size()-1);
+			params.add(m);
+			arcLengths.add(base + left + error/30);
+			params.add(b);
+			arcLengths.add(base + left + right + error/15);
+			return;
+		}
+
+		adaptiveSimpson(segment, a, m, fa, flm, fm, left, tolerance/2, depth-1, params, arcLengths);
+		adaptiveSimpson(segment, m, b, fm, frm, fb, right, tolerance/2, depth-1, params, arcLengths);
+	}
+
+	/**
+	 * @param segment
+	 * @param t
+	 * @return the speed |dP/dt| at parameter t of the given spline segment.
+	 */
+	private double getSpeed(int segment, double t) {
+		int i = getCoefficientIndex(segment);
+		double dx = (3*coefficients[i]*t + 2*coefficients[i+1])*t + coefficients[i+2];
+		double dy = (3*coefficients[i+4]*t + 2*coefficients[i+5])*t + coefficients[i+6];
+		return Math.hypot(dx, dy);
+	}
+
+	/**
+	 * Samples the speed limit at evenly spaced arc lengths along the whole spline, from max centripetal acceleration
+	 * if curvature-limited splines are enabled and from the SpeedZones of this Movement's constraints.
+	 * @param curvatureLimited
+	 * @return the unsigned speed limit at each of n+1 arc lengths from 0 to distance, n >= 2.
+	 */
+	private double[] getSpeedLimits(boolean curvatureLimited) {
+		double[] position = new double[2];
+		return CurvatureLimitedDisplacementCalculator.sampleSpeedLimits(distance, displacement -> {
+			int segment = getSegmentAt(displacement);
+			double t = getSegmentParameter(segment, displacement - partialProps[segment] * distance);
+
+			// centripetal acceleration v^2 * curvature
+			double curvature = curvatureLimited ? getCurvature(segment, t) : 0;
+			double speedLimit = curvature > 0
+					? Math.sqrt(DriveConstants.MAX_CENTRIPETAL_ACCELERATION / curvature)
+					: Double.POSITIVE_INFINITY;
+
+			if (constraints.hasSpeedZones()) {
+				getState(segment, t, position);
+				speedLimit = Math.min(speedLimit, constraints.getSpeedLimit(position[0], position[1]));
+			}
+			return speedLimit;
+		});
+	}
+
+	/**
+	 * Scales the given 2D vector to unit length, leaving zero vectors unchanged.
+	 * @param v
+	 */
+	private static void normalize(double[] v) {
+		double norm = Math.hypot(v[0], v[1]);
+		if (norm == 0) return;
+		v[0] /= norm;
+		v[1] /= norm;
+	}
+
+	/**
+	 * @param list
+	 * @return the given list as a primitive array.
+	 */
+	private static double[] toArray(ArrayList<Double> list) {
+		double[] array = new double[list.size()];
+		for (int i = 0; i < array.length; i++) array[i] = list.get(i);
+		return array;
+	}
+
 	/**
 	 * Calculates total distance and total time.
 	 */
 	private void init(boolean startTimeConstructor, double startTime) {
 
+		initCoefficients();
+
 		double[] lengths = new double[Math.max(0, getLength() - 1)];
 
-		// calculate distance
+		// build the arc length lookup table of each segment
 		distance = 0;
-		double delta_t = DriveConstants.delta_t;
-		TranslationState prevState = anchors[0];
-		for (int i = 0; i < getLength()-1; i++) {
-			double length = 0;
-			for (double t = 0; t <= 1; t += delta_t) {
-				// integrate distances over time
-				TranslationState state = getState(i, t);
-				double deltaDistance = state.minus(prevState).hypot();
-				distance += deltaDistance;
-				length += deltaDistance;
-				prevState = state;
+		segmentParams = new double[lengths.length][];
+		segmentArcLengths = new double[lengths.length][];
+		for (int i = 0; i < lengths.length; i++) {
+			if (DriveConstants.ARC_LENGTH_QUADRATURE) {
+				integrateSegment(i);
+			} else {
+				sumSegmentChords(i);
 			}
-			lengths[i] = length;
+			double[] arcLengths = segmentArcLengths[i];
+			lengths[i] = arcLengths[arcLengths.length-1];
+			distance += lengths[i];
 		}
 
-		double MV = DriveConstants.MAX_VELOCITY;
-		double MA = DriveConstants.MAX_ACCELERATION;
+		// calculate partial props
+		double partialLength = 0;
+		partialProps = new double[Math.max(0, getLength()-1)];
+		for (int i = 0; i < lengths.length; i++) {
+			// cumulative proportion of distance travelled at each anchor
+			partialProps[i] = distance != 0 ? partialLength / distance : 0;
+			partialLength += lengths[i];
+		}
+
+		double MV = constraints.getMaxVelocity();
+		double MA = constraints.getMaxAcceleration();
+		double MD = constraints.getMaxDeceleration();
+		double MJ = constraints.getMaxJerk();
+		boolean curvatureLimited = !jerkLimited && DriveConstants.CURVATURE_LIMITED_SPLINES;
+		boolean speedLimited = distance > 0 && (curvatureLimited || constraints.hasSpeedZones());
+		double[] speedLimits = speedLimited ? getSpeedLimits(curvatureLimited) : null;
+
+		// jerk-limited profiles cannot vary their cruise speed, so they keep under the slowest zone they pass through
+		if (jerkLimited && speedLimits != null) {
+			for (double limit : speedLimits) MV = Math.min(MV, limit);
+		}
 
 		if (startTimeConstructor) {
-			minDuration = StretchedDisplacementCalculator.findMinDuration(distance, MV, MA);
+			if (jerkLimited) {
+				minDuration = SCurveDisplacementCalculator.findMinDuration(distance, MV, MA, MD, MJ);
+			} else if (speedLimited) {
+				minDuration = CurvatureLimitedDisplacementCalculator.findMinDuration(distance, MV, MA, MD, speedLimits);
+			} else {
+				minDuration = StretchedDisplacementCalculator.findMinDuration(distance, MV, MA, MD, 0, 0);
+			}
 			timeSpan = new TimeSpan(startTime, startTime + minDuration);
 		}
 
 		// create calculator object
-		calculator = new StretchedDisplacementCalculator(distance, timeSpan, MV, MA);
+		if (jerkLimited) {
+			calculator = new SCurveDisplacementCalculator(distance, timeSpan, MV, MA, MD, MJ);
+		} else if (speedLimited) {
+			calculator = new CurvatureLimitedDisplacementCalculator(distance, timeSpan, MV, MA, MD, speedLimits);
+		} else {
+			calculator = new StretchedDisplacementCalculator(distance, timeSpan, MV, MA, MD);
+		}
 
 		minDuration = calculator.getMinDuration();
-		
-		// calculate partial props
-		double partialLength = 0;
-		partialProps = new double[Math.max(0, getLength()-1)];
-		for (int i = 0; i < lengths.length; i++) {
-			// cumulative proportion of distance travelled at each anchor
-			partialProps[i] = partialLength / distance;
-			partialLength += lengths[i];
-		}
 	}
 
 }
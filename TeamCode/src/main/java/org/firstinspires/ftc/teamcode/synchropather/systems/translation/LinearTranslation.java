@@ -1,9 +1,13 @@
 package org.firstinspires.ftc.teamcode.synchropather.systems.translation;
 
 
-import org.firstinspires.ftc.teamcode.synchropather.DriveConstants;
 import org.firstinspires.ftc.teamcode.synchropather.systems.MovementType;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.ContentHash;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.KinematicConstraints;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.MotionSample;
 import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.TimeSpan;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.calculators.CurvatureLimitedDisplacementCalculator;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.calculators.SCurveDisplacementCalculator;
 import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.calculators.StretchedDisplacementCalculator;
 import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.superclasses.Movement;
 
@@ -13,8 +17,11 @@ import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.superclasse
 public class LinearTranslation extends Movement {
 	
 	private double distance, minDuration;
+	private double cos, sin;
 	private TranslationState start, end;
 	private StretchedDisplacementCalculator calculator;
+	private final boolean jerkLimited;
+	private final KinematicConstraints constraints;
 	
 	
 	/**
@@ -24,9 +31,34 @@ public class LinearTranslation extends Movement {
 	 * @param end
 	 */
 	public LinearTranslation(TimeSpan timeSpan, TranslationState start, TranslationState end) {
+		this(timeSpan, start, end, false);
+	}
+
+	/**
+	 * Creates a new LinearTranslation object with a given start and end TranslationState allotted for the given TimeSpan.
+	 * @param timeSpan
+	 * @param start
+	 * @param end
+	 * @param jerkLimited if true, follows a jerk-limited S-curve profile instead of a trapezoidal one.
+	 */
+	public LinearTranslation(TimeSpan timeSpan, TranslationState start, TranslationState end, boolean jerkLimited) {
+		this(timeSpan, start, end, jerkLimited, KinematicConstraints.getTranslationDefaults());
+	}
+
+	/**
+	 * Creates a new LinearTranslation object with a given start and end TranslationState allotted for the given TimeSpan.
+	 * @param timeSpan
+	 * @param start
+	 * @param end
+	 * @param jerkLimited if true, follows a jerk-limited S-curve profile instead of a trapezoidal one.
+	 * @param constraints kinematic limits and SpeedZones used instead of the DriveConstants defaults.
+	 */
+	public LinearTranslation(TimeSpan timeSpan, TranslationState start, TranslationState end, boolean jerkLimited, KinematicConstraints constraints) {
 		super(timeSpan, MovementType.TRANSLATION);
 		this.start = start;
 		this.end = end;
+		this.jerkLimited = jerkLimited;
+		this.constraints = constraints;
 		init(false, -1);
 	}
 
@@ -37,9 +69,34 @@ public class LinearTranslation extends Movement {
 	 * @param end
 	 */
 	public LinearTranslation(double startTime, TranslationState start, TranslationState end) {
+		this(startTime, start, end, false);
+	}
+
+	/**
+	 * Creates a new LinearTranslation object with a given start and end TranslationState at the given startTime.
+	 * @param startTime
+	 * @param start
+	 * @param end
+	 * @param jerkLimited if true, follows a jerk-limited S-curve profile instead of a trapezoidal one.
+	 */
+	public LinearTranslation(double startTime, TranslationState start, TranslationState end, boolean jerkLimited) {
+		this(startTime, start, end, jerkLimited, KinematicConstraints.getTranslationDefaults());
+	}
+
+	/**
+	 * Creates a new LinearTranslation object with a given start and end TranslationState at the given startTime.
+	 * @param startTime
+	 * @param start
+	 * @param end
+	 * @param jerkLimited if true, follows a jerk-limited S-curve profile instead of a trapezoidal one.
+	 * @param constraints kinematic limits and SpeedZones used instead of the DriveConstants defaults.
+	 */
+	public LinearTranslation(double startTime, TranslationState start, TranslationState end, boolean jerkLimited, KinematicConstraints constraints) {
 		super(MovementType.TRANSLATION);
 		this.start = start;
 		this.end = end;
+		this.jerkLimited = jerkLimited;
+		this.constraints = constraints;
 		init(true, startTime);
 	}
 
@@ -48,25 +105,67 @@ public class LinearTranslation extends Movement {
 	 */
 	@Override
 	public TranslationState getState(double elapsedTime) {
+		double[] out = new double[2];
+		getState(elapsedTime, out);
+		return new TranslationState(out[0], out[1]);
+	}
+
+	/**
+	 * @return the indicated velocity TranslationState.
+	 */
+	@Override
+	public TranslationState getVelocity(double elapsedTime) {
+		double[] out = new double[2];
+		getVelocity(elapsedTime, out);
+		return new TranslationState(out[0], out[1]);
+	}
+
+	/**
+	 * Writes the x and y coordinates at the given elapsed time into the given buffer.
+	 * @param elapsedTime
+	 * @param out
+	 */
+	@Override
+	public void getState(double elapsedTime, double[] out) {
 		double t = distance!=0 ? calculator.getDisplacement(elapsedTime) / distance : 0;
 
 		double q0 = 1 - t;
 		double q1 = t;
 
 		// linear interpolation
-		return start.times(q0).plus(end.times(q1));
+		out[0] = start.getX()*q0 + end.getX()*q1;
+		out[1] = start.getY()*q0 + end.getY()*q1;
 	}
 
 	/**
-	 * @return the indicated velocity TranslationState.
+	 * Writes the x and y velocities at the given elapsed time into the given buffer.
+	 * @param elapsedTime
+	 * @param out
 	 */
 	@Override
-	public TranslationState getVelocity(double elapsedTime) {
-		double theta = end.minus(start).theta();
+	public void getVelocity(double elapsedTime, double[] out) {
 		double speed = calculator.getVelocity(elapsedTime);
-		
+
 		// scaled velocity vector
-		return new TranslationState(speed, theta, true);
+		out[0] = speed * cos;
+		out[1] = speed * sin;
+	}
+
+	/**
+	 * Writes the position, velocity, and acceleration at the given elapsed time into the given sample.
+	 * @param elapsedTime
+	 * @param out
+	 */
+	@Override
+	public void sample(double elapsedTime, MotionSample out) {
+		getState(elapsedTime, out.position);
+
+		double speed = calculator.getVelocity(elapsedTime);
+		double acceleration = calculator.getAcceleration(elapsedTime);
+		out.velocity[0] = speed * cos;
+		out.velocity[1] = speed * sin;
+		out.acceleration[0] = acceleration * cos;
+		out.acceleration[1] = acceleration * sin;
 	}
 	
 	@Override
@@ -74,6 +173,97 @@ public class LinearTranslation extends Movement {
 		return minDuration;
 	}
 
+	/**
+	 * @return whether this LinearTranslation follows a trapezoidal profile, which can start and end at nonzero speed.
+	 */
+	@Override
+	public boolean supportsBoundarySpeeds() {
+		return !jerkLimited;
+	}
+
+	/**
+	 * Sets the unsigned speeds at the start and end of this Movement and fits it to the new minimum duration from the same start time.
+	 * @param startSpeed
+	 * @param endSpeed
+	 */
+	@Override
+	public void setBoundarySpeeds(double startSpeed, double endSpeed) {
+		calculator.setBoundaryVelocities(startSpeed, endSpeed);
+		minDuration = calculator.getMinDuration();
+		super.setTimeSpan(calculator.getTimeSpan());
+	}
+
+	@Override
+	public double getStartSpeed() {
+		return calculator.getStartVelocity();
+	}
+
+	@Override
+	public double getEndSpeed() {
+		return calculator.getEndVelocity();
+	}
+
+	@Override
+	public double getMaxEndSpeed(double startSpeed) {
+		return calculator.getMaxEndVelocity(startSpeed);
+	}
+
+	@Override
+	public double getMaxStartSpeed(double endSpeed) {
+		return calculator.getMaxStartVelocity(endSpeed);
+	}
+
+	@Override
+	public double getMaxSpeed() {
+		return constraints.getMaxVelocity();
+	}
+
+	@Override
+	public double getMaxAcceleration() {
+		return constraints.getMaxAcceleration();
+	}
+
+	@Override
+	public double getMaxDeceleration() {
+		return constraints.getMaxDeceleration();
+	}
+
+	/**
+	 * @return the kinematic limits this Movement is profiled with.
+	 */
+	public KinematicConstraints getConstraints() {
+		return constraints;
+	}
+
+	/**
+	 * Writes the unit direction of motion at the start of this Movement into the given buffer.
+	 * @param out
+	 */
+	@Override
+	public void getStartDirection(double[] out) {
+		out[0] = distance!=0 ? cos : 0;
+		out[1] = distance!=0 ? sin : 0;
+	}
+
+	/**
+	 * Writes the unit direction of motion at the end of this Movement into the given buffer.
+	 * @param out
+	 */
+	@Override
+	public void getEndDirection(double[] out) {
+		out[0] = distance!=0 ? cos : 0;
+		out[1] = distance!=0 ? sin : 0;
+	}
+
+	/**
+	 * Sets the allotted timeSpan of this Movement and stretches its velocity curve to fit.
+	 */
+	@Override
+	public void setTimeSpan(TimeSpan timeSpan) {
+		calculator.setTimeSpan(timeSpan);
+		super.setTimeSpan(calculator.getTimeSpan());
+	}
+
 	/**
 	 * @return the TranslationState of this Movement at the start time.
 	 */
@@ -90,6 +280,17 @@ public class LinearTranslation extends Movement {
 		return end;
 	}
 
+	/**
+	 * Adds the TimeSpan, start and end states, profile shape, and constraints of this LinearTranslation to the given hash.
+	 * @param hash
+	 */
+	@Override
+	public void hashContent(ContentHash hash) {
+		super.hashContent(hash);
+		hash.add(jerkLimited ? 1L : 0L);
+		constraints.hashContent(hash);
+	}
+
 	/**
 	 * @return "LinearTranslation"
 	 */
@@ -98,22 +299,66 @@ public class LinearTranslation extends Movement {
 		return "LinearTranslation";
 	}
 	
+	/**
+	 * Samples the SpeedZones of this Movement's constraints at evenly spaced distances along the line.
+	 * @return the unsigned speed limit at each of n+1 distances from 0 to distance, n >= 2, or null if no SpeedZone touches the line.
+	 */
+	private double[] getSpeedLimits() {
+		if (!constraints.hasSpeedZones() || distance == 0) return null;
+		double[] speedLimits = CurvatureLimitedDisplacementCalculator.sampleSpeedLimits(distance, displacement -> {
+			double t = displacement / distance;
+			return constraints.getSpeedLimit(
+					start.getX()*(1-t) + end.getX()*t,
+					start.getY()*(1-t) + end.getY()*t
+			);
+		});
+		for (double limit : speedLimits) {
+			if (limit < Double.POSITIVE_INFINITY) return speedLimits;
+		}
+		return null;
+	}
+
 	/**
 	 * Calculates total time.
 	 */
 	private void init(boolean startTimeConstructor, double startTime) {
 		distance = end.minus(start).hypot();
 
-		double MV = DriveConstants.MAX_VELOCITY;
-		double MA = DriveConstants.MAX_ACCELERATION;
+		double theta = end.minus(start).theta();
+		cos = Math.cos(theta);
+		sin = Math.sin(theta);
+
+		double MV = constraints.getMaxVelocity();
+		double MA = constraints.getMaxAcceleration();
+		double MD = constraints.getMaxDeceleration();
+		double MJ = constraints.getMaxJerk();
+		double[] speedLimits = getSpeedLimits();
+
+		// jerk-limited profiles cannot vary their cruise speed, so they keep under the slowest zone they pass through
+		if (jerkLimited && speedLimits != null) {
+			for (double limit : speedLimits) MV = Math.min(MV, limit);
+		}
+		boolean speedLimited = !jerkLimited && speedLimits != null;
 
 		if (startTimeConstructor) {
-			minDuration = StretchedDisplacementCalculator.findMinDuration(distance, MV, MA);
+			if (jerkLimited) {
+				minDuration = SCurveDisplacementCalculator.findMinDuration(distance, MV, MA, MD, MJ);
+			} else if (speedLimited) {
+				minDuration = CurvatureLimitedDisplacementCalculator.findMinDuration(distance, MV, MA, MD, speedLimits);
+			} else {
+				minDuration = StretchedDisplacementCalculator.findMinDuration(distance, MV, MA, MD, 0, 0);
+			}
 			timeSpan = new TimeSpan(startTime, startTime + minDuration);
 		}
 		
 		// create calculator object
-		calculator = new StretchedDisplacementCalculator(distance, timeSpan, MV, MA);
+		if (jerkLimited) {
+			calculator = new SCurveDisplacementCalculator(distance, timeSpan, MV, MA, MD, MJ);
+		} else if (speedLimited) {
+			calculator = new CurvatureLimitedDisplacementCalculator(distance, timeSpan, MV, MA, MD, speedLimits);
+		} else {
+			calculator = new StretchedDisplacementCalculator(distance, timeSpan, MV, MA, MD);
+		}
 		
 		minDuration = calculator.getMinDuration();
 	}
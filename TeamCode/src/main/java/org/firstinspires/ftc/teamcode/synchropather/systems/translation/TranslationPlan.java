@@ -2,16 +2,17 @@ package org.firstinspires.ftc.teamcode.synchropather.systems.translation;
 
 
 import com.arcrobotics.ftclib.geometry.Pose2d;
-import com.qualcomm.robotcore.util.ElapsedTime;
 
 import org.firstinspires.ftc.teamcode.subsystems.DriveSubsystem;
 import org.firstinspires.ftc.teamcode.subsystems.OdometrySubsystem;
+import org.firstinspires.ftc.teamcode.synchropather.DriveConstants;
 import org.firstinspires.ftc.teamcode.synchropather.systems.MovementType;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.BakedTrajectory;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.ChassisCommand;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.SampleBuffer;
 import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.superclasses.Movement;
 import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.superclasses.Plan;
 
-import java.util.ArrayList;
-
 /**
  * Object containing a sequence of Movements for translational drive.
  */
@@ -26,19 +27,55 @@ public class TranslationPlan extends Plan<TranslationState> {
 	public TranslationPlan(Movement... movements) {
 		super(MovementType.TRANSLATION, movements);
 	}
+
+	/**
+	 * Creates a new TranslationPlan object that follows the given precomputed trajectory.
+	 * @param bakedTrajectory
+	 */
+	public TranslationPlan(BakedTrajectory bakedTrajectory) {
+		super(bakedTrajectory);
+	}
+
 	public static double kP = 1; // to be tuned
 	public static double kD = 1; // to be tuned
 	public static double lastErrorX = 0;
 	public static double lastErrorY = 0;
 
-	public static ElapsedTime tt;
-	public ArrayList<Double> times;
+	/**
+	 * The recent x and y errors, differentiated for the D term.
+	 */
+	private final SampleBuffer errorsX = new SampleBuffer(DriveConstants.DERIVATIVE_SAMPLES);
+	private final SampleBuffer errorsY = new SampleBuffer(DriveConstants.DERIVATIVE_SAMPLES);
+
+	/**
+	 * Reused by loop() when this Plan drives the chassis on its own.
+	 */
+	private final ChassisCommand command = new ChassisCommand();
+
+	/**
+	 * @return a TranslationState with x and y taken from the given values.
+	 */
+	@Override
+	protected TranslationState createState(double[] values) {
+		return new TranslationState(values[0], values[1]);
+	}
 
 	/**
 	 * Controls the translation output of the robot to the TranslationState at the elapsedTime.
 	 */
 	@Override
 	public void loop() {
+		command.clear();
+		loop(command);
+		DriveSubsystem.drive(command);
+	}
+
+	/**
+	 * Adds the translation output of the robot to the TranslationState at the elapsedTime to the given command.
+	 * @param command
+	 */
+	@Override
+	public void loop(ChassisCommand command) {
 
 		// brute force PID to target
 
@@ -48,31 +85,21 @@ public class TranslationPlan extends Plan<TranslationState> {
     	Pose2d currentPos = OdometrySubsystem.getPose();
 		double x = currentPos.getX();
 		double y = currentPos.getY();
-		double errorX = x - poseState.getX();
-		double errorY = y - poseState.getY();
-
-
+		double errorX = poseState.getX() - x;
+		double errorY = poseState.getY() - y;
 
 
 
-		while (times.size() < 5) {
-			times.add((double) 0);
-		}
-		times.add(tt.seconds());
-		while (times.size() > 5) {
-			times.remove(0);
-		}
-		//double dx = (errorX-lastErrorX)/(tt.seconds()-lastTime);
-		//double dy = (errorY-lastErrorY)/(tt.seconds()-lastTime);
 
-		// five point stencil
-		double dErrorX = (0 - errorX * times.get(times.size()-1)+ 8*errorX*(times.get(times.size()-2)) - 8*errorX*(times.get(times.size()-4)) + errorX * times.get(times.size() - 5) )
-				/ (12 * (times.get(times.size()-1) - times.get(times.size()-2)) );
-		double dErrorY = (0 - errorY * times.get(times.size()-1)+ 8*errorY*(times.get(times.size()-2)) - 8*errorY*(times.get(times.size()-4)) + errorY * times.get(times.size() - 5) )
-				/ (12 * (times.get(times.size()-1) - times.get(times.size()-2)) );
 
+		// derivative through the recent errors, which stays exact for uneven loop times
+		double time = System.nanoTime() * 1e-9;
+		errorsX.add(time, errorX);
+		errorsY.add(time, errorY);
+		double dErrorX = errorsX.getDerivative();
+		double dErrorY = errorsY.getDerivative();
 
-		DriveSubsystem.driveFieldCentric(errorX * kP + kD * dErrorX, errorY * kP + kD * dErrorY, 0);
+		command.addTranslation(errorX * kP + kD * dErrorX, errorY * kP + kD * dErrorY);
 		lastErrorX = errorX;
 		lastErrorY = errorY;
 
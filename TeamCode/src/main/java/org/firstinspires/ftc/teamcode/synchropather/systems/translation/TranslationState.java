@@ -102,6 +102,16 @@ public class TranslationState extends RobotState {
 		return new TranslationState(x * factor, y * factor);
 	}
 
+	/**
+	 * Writes x and y into the first two values of the given buffer.
+	 * @param out
+	 */
+	@Override
+	public void copyTo(double[] out) {
+		out[0] = x;
+		out[1] = y;
+	}
+
 	@Override
 	/**
 	 * @return a String containing the ordered pair (x,y) in inches.
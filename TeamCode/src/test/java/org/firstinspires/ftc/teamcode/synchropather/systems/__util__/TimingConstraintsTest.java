@@ -0,0 +1,87 @@
+package org.firstinspires.ftc.teamcode.synchropather.systems.__util__;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.firstinspires.ftc.teamcode.synchropather.systems.MovementType;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.superclasses.Movement;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.superclasses.Plan;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.superclasses.RobotState;
+import org.firstinspires.ftc.teamcode.synchropather.systems.rotation.LinearRotation;
+import org.firstinspires.ftc.teamcode.synchropather.systems.rotation.RotationState;
+import org.firstinspires.ftc.teamcode.synchropather.systems.translation.LinearTranslation;
+import org.firstinspires.ftc.teamcode.synchropather.systems.translation.TranslationState;
+import org.junit.Test;
+
+/**
+ * Regression tests for synchronization points that stretch Movements of a continuous MovementSequence.
+ */
+public class TimingConstraintsTest {
+
+	private static final double EPSILON = 1e-6;
+
+	/**
+	 * Plan that only holds its Movements, without any hardware.
+	 */
+	private static class TestPlan<T extends RobotState> extends Plan<T> {
+		TestPlan(MovementType movementType, Movement... movements) {
+			super(movementType, movements);
+		}
+
+		@Override
+		public void loop() {}
+
+		@Override
+		protected T createState(double[] values) {
+			return null;
+		}
+	}
+
+	private static Movement[] getContinuousLine() {
+		return new MovementSequence()
+				.setContinuous(true)
+				.then(() -> new LinearTranslation(0, new TranslationState(0, 0), new TranslationState(24, 0)))
+				.then(() -> new LinearTranslation(0, new TranslationState(24, 0), new TranslationState(48, 0)))
+				.build();
+	}
+
+	@Test
+	public void gapAtLinkedJunctionStopsTheRobot() {
+		Movement[] line = getContinuousLine();
+		assertTrue(line[0].getEndSpeed() > 0);
+		double delay = line[0].getDuration() + 1;
+		Plan<TranslationState> plan = new TestPlan<>(MovementType.TRANSLATION, line);
+
+		new TimingConstraints().startsAfterStart(line[1], line[0], delay).solve(plan);
+
+		// the junction is brought to rest, so the robot waits at the corner instead of stalling at speed
+		assertEquals(0, line[0].getEndSpeed(), EPSILON);
+		assertEquals(0, line[1].getStartSpeed(), EPSILON);
+		assertEquals(delay, line[1].getStartTime(), EPSILON);
+		for (double time = line[0].getEndTime(); time <= line[1].getStartTime(); time += 0.05) {
+			MotionSample sample = plan.sample(time);
+			assertEquals(24, sample.position[0], EPSILON);
+			assertEquals(0, sample.velocity[0], EPSILON);
+		}
+		assertEquals(48, ((TranslationState) line[1].getState(line[1].getEndTime())).getX(), EPSILON);
+	}
+
+	@Test
+	public void endsWithStretchesLinkedMovement() {
+		Movement[] line = getContinuousLine();
+		Plan<TranslationState> plan = new TestPlan<>(MovementType.TRANSLATION, line);
+		Movement rotation = new LinearRotation(new TimeSpan(0, 2.85), new RotationState(0), new RotationState(2*Math.PI));
+		Plan<RotationState> rotationPlan = new TestPlan<>(MovementType.ROTATION, rotation);
+		assertTrue(rotation.getMinDuration() > line[0].getMinDuration());
+
+		new TimingConstraints().endsWith(line[0], rotation).solve(plan, rotationPlan);
+
+		assertEquals(rotation.getEndTime(), line[0].getEndTime(), EPSILON);
+		assertEquals(line[0].getEndTime(), line[1].getStartTime(), EPSILON);
+		assertEquals(0, line[0].getEndSpeed(), EPSILON);
+		TranslationState corner = (TranslationState) line[0].getState(line[0].getEndTime());
+		assertEquals(24, corner.getX(), EPSILON);
+		assertEquals(0, ((TranslationState) line[0].getVelocity(line[0].getEndTime())).hypot(), EPSILON);
+	}
+
+}
@@ -0,0 +1,60 @@
+package org.firstinspires.ftc.teamcode.synchropather.systems.translation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.firstinspires.ftc.teamcode.synchropather.DriveConstants;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.KinematicConstraints;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.SpeedZone;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.TimeSpan;
+import org.firstinspires.ftc.teamcode.synchropather.systems.__util__.calculators.CurvatureLimitedDisplacementCalculator;
+import org.junit.Test;
+
+/**
+ * Regression tests for speed-limited Movements shorter than one DriveConstants.CURVATURE_PROFILE_STEP.
+ */
+public class ShortTranslationTest {
+
+	private static final double EPSILON = 1e-6;
+
+	@Test
+	public void subStepSplineReachesItsEnd() {
+		for (double length : new double[]{0.05, 0.1, 0.2, DriveConstants.CURVATURE_PROFILE_STEP}) {
+			CRSplineTranslation spline = new CRSplineTranslation(0,
+					new TranslationState(0, 0),
+					new TranslationState(length/2, 0.001),
+					new TranslationState(length, 0)
+			);
+			assertTrue(spline.getMinDuration() > 0);
+			TranslationState end = spline.getState(spline.getEndTime());
+			assertEquals(length, end.getX(), EPSILON);
+			assertEquals(0, end.getY(), EPSILON);
+			assertEquals(0, spline.getVelocity(spline.getEndTime()).hypot(), EPSILON);
+		}
+	}
+
+	@Test
+	public void subStepZonedLineReachesItsEnd() {
+		KinematicConstraints constraints = KinematicConstraints.getTranslationDefaults()
+				.withSpeedZones(new SpeedZone(-1, -1, 1, 1, 10));
+		LinearTranslation line = new LinearTranslation(0, new TranslationState(0, 0), new TranslationState(0.1, 0), false, constraints);
+		assertEquals(0.1, line.getState(line.getEndTime()).getX(), EPSILON);
+	}
+
+	@Test
+	public void restToRestIntervalIsProfiled() {
+		double distance = 0.1, MA = 54, MD = 27;
+		double[] speedLimits = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY};
+		double minDuration = CurvatureLimitedDisplacementCalculator.findMinDuration(distance, 60, MA, MD, speedLimits);
+		CurvatureLimitedDisplacementCalculator calculator = new CurvatureLimitedDisplacementCalculator(
+				distance, new TimeSpan(0, minDuration), 60, MA, MD, speedLimits);
+
+		// triangular profile that accelerates at MA and decelerates at MD
+		double peak = Math.sqrt(2*distance*MA*MD / (MA + MD));
+		assertEquals(peak/MA + peak/MD, minDuration, EPSILON);
+		assertEquals(peak, calculator.getVelocity(peak/MA), EPSILON);
+		assertEquals(distance, calculator.getDisplacement(minDuration), EPSILON);
+		assertEquals(0, calculator.getVelocity(minDuration), EPSILON);
+	}
+
+}